@@ -0,0 +1,92 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes configuration files of any size for the benchmarks
+ *
+ * @author dlema
+ */
+public final class ConfigurationFiles {
+
+	// password of the sample configuration file, encrypted with resources/key.dat
+	public static final String PASSWORD = "rDJ39M1sFctUhwIJwGYV5JHRXwmppQs9zSHbPGqJLbo=";
+
+	// number of source datastores the subscriptions are spread over
+	public static final int DATASTORES = 10;
+
+	private ConfigurationFiles() {
+	}
+
+	/**
+	 * @return name of the datastore holding a subscription
+	 */
+	public static String dataStore(int subscription) {
+		return "DS" + (subscription % DATASTORES);
+	}
+
+	/**
+	 * @return name of a subscription
+	 */
+	public static String subscription(int subscription) {
+		return "SUB" + subscription;
+	}
+
+	/**
+	 * Writes a configuration file in a temporary file.
+	 *
+	 * @param subscriptions number of subscriptions
+	 * @param loaderClass job class of every subscription
+	 * @return the file, deleted on exit
+	 * @throws IOException
+	 */
+	public static Path write(int subscriptions, String loaderClass) throws IOException {
+		Path file = Files.createTempFile("configuration-" + subscriptions + "-", ".xml");
+		file.toFile().deleteOnExit();
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+			out.write("<configuration>\n");
+			out.write("    <accessServer>localhost</accessServer>\n");
+			out.write("    <port>10101</port>\n");
+			out.write("    <userId>cdcadmin</userId>\n");
+			out.write("    <password>" + PASSWORD + "</password>\n");
+			out.write("    <subscriptions>\n");
+			for (int i = 0; i < subscriptions; i++) {
+				out.write("        <subscription subscriptionId=\"" + subscription(i) + "\">\n");
+				out.write("            <subscriptionName>" + subscription(i) + "</subscriptionName>\n");
+				out.write("            <sourceDataStore>" + dataStore(i) + "</sourceDataStore>\n");
+				out.write("            <cronPattern>0 0/1 * ? * * *</cronPattern>\n");
+				out.write("            <loaderClass>" + loaderClass + "</loaderClass>\n");
+				out.write("            <enabled>true</enabled>\n");
+				out.write("        </subscription>\n");
+			}
+			out.write("    </subscriptions>\n");
+			out.write("</configuration>\n");
+		}
+		return file;
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.demo.management.idr.benchmark.ConfigurationFiles;
+import com.demo.management.idr.scheduler.SimpleSubscriptionStarter;
+
+/**
+ * Loading the configuration file, with the editor model and with the streaming reader
+ * used by the scheduler service.
+ *
+ * The GC profiler reports allocation rates only, so the heap retained by each model once
+ * the file is loaded is measured by {@link #retainedHeap}, a single shot, and reported as
+ * its secondary results in bytes per subscription.
+ *
+ * @author dlema
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationBenchmark {
+
+	@Param({"100", "10000", "100000"})
+	public int subscriptions;
+
+	private File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = ConfigurationFiles.write(subscriptions, SimpleSubscriptionStarter.class.getName()).toFile();
+	}
+
+	/**
+	 * Heap retained by each model, in bytes per subscription
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class RetainedHeap {
+
+		public long editorModelBytes;
+		public long streamingReaderBytes;
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			editorModelBytes = 0;
+			streamingReaderBytes = 0;
+		}
+	}
+
+	/**
+	 * Loads the file once with each model and measures the heap it retains.  The time
+	 * reported is not meaningful; a single iteration keeps the counters from adding up.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	public List<ServiceSubscription> retainedHeap(RetainedHeap heap) {
+		long before = usedHeap();
+		Configuration model = Configuration.unmarshal(file);
+		heap.editorModelBytes = (usedHeap() - before) / subscriptions;
+		// keeps the model reachable until it has been measured
+		if (model.getSubscriptions().size() != subscriptions) {
+			throw new IllegalStateException("unexpected subscriptions: " + model.getSubscriptions().size());
+		}
+		// not retained while the streaming reader is measured
+		model = null;
+
+		List<ServiceSubscription> read = new ArrayList<>();
+		before = usedHeap();
+		streamingRead(read);
+		heap.streamingReaderBytes = (usedHeap() - before) / subscriptions;
+		return read;
+	}
+
+	@Benchmark
+	public Configuration unmarshal() {
+		return Configuration.unmarshal(file);
+	}
+
+	/**
+	 * Reads the file with the streaming reader, keeping every subscription
+	 * @param read list receiving the subscriptions
+	 */
+	private ServiceConfiguration streamingRead(List<ServiceSubscription> read) {
+		return ServiceConfigurationReader.read(file, new ServiceConfigurationReader.Handler<RuntimeException>() {
+			@Override
+			public void configuration(ServiceConfiguration configuration) {
+				// only subscriptions are measured
+			}
+
+			@Override
+			public void subscription(ServiceSubscription subscription) {
+				read.add(subscription);
+			}
+		});
+	}
+
+	/**
+	 * @return heap in use after a full collection
+	 */
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			memory.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	@Benchmark
+	public ServiceConfiguration streamingRead(Blackhole blackhole) {
+		return ServiceConfigurationReader.read(file, new ServiceConfigurationReader.Handler<RuntimeException>() {
+			@Override
+			public void configuration(ServiceConfiguration configuration) {
+				blackhole.consume(configuration);
+			}
+
+			@Override
+			public void subscription(ServiceSubscription subscription) {
+				blackhole.consume(subscription);
+			}
+		});
+	}
+}
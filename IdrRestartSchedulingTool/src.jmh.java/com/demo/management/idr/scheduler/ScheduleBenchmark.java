@@ -0,0 +1,97 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.SchedulerException;
+
+import com.demo.management.idr.benchmark.ConfigurationFiles;
+
+/**
+ * Scheduling the subscriptions of a configuration file: a first load, with an empty 
+ * scheduler, and a reload of the same file, which must leave the jobs untouched.  The
+ * scheduler is never started, so no job runs.
+ *
+ * @author dlema
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScheduleBenchmark {
+
+	@Param({"100", "10000", "100000"})
+	public int subscriptions;
+
+	private IdrSchedulerService service;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SchedulerException {
+		service = new IdrSchedulerService();
+		service.setConfigFile(ConfigurationFiles.write(subscriptions, 
+				SimpleSubscriptionStarter.class.getName()).toString());
+		service.schedule();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SchedulerException {
+		service.getScheduler().shutdown();
+	}
+
+	/**
+	 * Empties the scheduler before each first load
+	 */
+	@State(Scope.Thread)
+	public static class Cleared {
+
+		@Setup(Level.Invocation)
+		public void clear(ScheduleBenchmark benchmark) throws SchedulerException {
+			benchmark.service.getScheduler().clear();
+		}
+	}
+
+	@Benchmark
+	public boolean firstLoad(Cleared cleared) throws IOException, SchedulerException {
+		return service.schedule();
+	}
+
+	@Benchmark
+	public boolean reload() throws IOException, SchedulerException {
+		return service.schedule();
+	}
+}
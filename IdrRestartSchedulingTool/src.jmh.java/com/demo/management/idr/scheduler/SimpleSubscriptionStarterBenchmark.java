@@ -0,0 +1,106 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import com.demo.management.idr.benchmark.ConfigurationFiles;
+import com.demo.management.idr.model.Settings;
+import com.demo.management.idr.simulation.SimulatedAccessServer;
+import com.demo.management.idr.util.AccessServerSessionPool;
+import com.demo.management.idr.util.DataSourceFactory;
+import com.demo.management.idr.util.SubscriptionStatusCache;
+
+/**
+ * One subscription check, from the job data map to the status answer, against a
+ * simulated Access Server that answers immediately and never fails.  With a status 
+ * cache the server is only asked once per time to live.
+ *
+ * @author dlema
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SimpleSubscriptionStarterBenchmark {
+
+	@Param({"0", "5000"})
+	public long statusCacheTtl;
+
+	private JobExecutionContext context;
+	private final SimpleSubscriptionStarter starter = new SimpleSubscriptionStarter();
+
+	@Setup
+	public void setUp() {
+		SimulatedAccessServer accessServer = new SimulatedAccessServer();
+		accessServer.addSubscription(ConfigurationFiles.dataStore(0), ConfigurationFiles.subscription(0));
+		AccessServerSessionPool.getInstance().setDataSourceFactory(accessServer);
+		SubscriptionStatusCache.getInstance().setTtl(statusCacheTtl);
+		// every thread checks the same subscription, so the datastore must not be the bottleneck
+		Settings settings = new Settings();
+		settings.setMaxConcurrentJobsPerDataStore(settings.getMaxConcurrentJobsPerAccessServer());
+		ConcurrencyGovernor.getInstance().configure(settings);
+
+		JobDataMap dataMap = new JobDataMap();
+		new ConnectionProfile("localhost", "10101", "cdcadmin", "password").putInto(dataMap);
+		dataMap.put("dataStore", ConfigurationFiles.dataStore(0));
+		dataMap.put("subscription", ConfigurationFiles.subscription(0));
+
+		// only the data map is read and the result written, everything else is left null
+		context = (JobExecutionContext) Proxy.newProxyInstance(getClass().getClassLoader(), 
+				new Class<?>[] {JobExecutionContext.class}, (proxy, method, args) -> 
+					"getMergedJobDataMap".equals(method.getName()) ? dataMap : 
+					"toString".equals(method.getName()) ? "benchmark context" : null);
+	}
+
+	@TearDown
+	public void tearDown() {
+		AccessServerSessionPool.getInstance().setDataSourceFactory(DataSourceFactory.TOOLKIT);
+		SubscriptionStatusCache.getInstance().setTtl(SubscriptionStatusCache.DEFAULT_TTL);
+		ConcurrencyGovernor.getInstance().configure(new Settings());
+	}
+
+	@Benchmark
+	public void check() throws JobExecutionException {
+		starter.execute(context);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.demo.management.idr.benchmark.ConfigurationFiles;
+
+/**
+ * Decrypting a password, directly and through the credential cache
+ *
+ * @author dlema
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptorBenchmark {
+
+	private Encryptor encryptor;
+	private CredentialService credentials;
+
+	@Setup
+	public void setUp() throws IOException {
+		encryptor = new Encryptor();
+		credentials = new CredentialService();
+	}
+
+	@Benchmark
+	public String decrypt() {
+		return encryptor.decrypt(ConfigurationFiles.PASSWORD);
+	}
+
+	@Benchmark
+	public String decryptCached() throws IOException {
+		return credentials.decrypt(ConfigurationFiles.PASSWORD);
+	}
+}
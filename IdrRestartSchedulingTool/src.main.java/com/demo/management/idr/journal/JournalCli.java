@@ -0,0 +1,132 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * Command line access to the restart journal.
+ * 
+ * Usage: java -cp IdrRestartSchedulingTool-0.0.1-jar-with-dependencies.jar 
+ * com.demo.management.idr.journal.JournalCli journalDirectory [options]
+ * 
+ * <pre>
+ *  -d datastore     only checks of this source datastore
+ *  -s subscription  only checks of this subscription
+ *  -o outcome,...   only these outcomes: ACTIVE, STARTED, NOT_FOUND, FAILED, CONFIRMED, 
+ *                   STILL_STARTING, START_FAILED, DEFERRED
+ *  -h hours         only the last hours (24 by default, 0 for the whole journal)
+ *  -n records       at most this many records, newest first (100 by default)
+ *  -c               prints only the number of records
+ * </pre>
+ * 
+ * For example, restarts of SUB1 in the last 24 hours: JournalCli journal -s SUB1 -o STARTED
+ *
+ * @author dlema
+ */
+public class JournalCli {
+
+	private static final int DEFAULT_HOURS = 24;
+	private static final int DEFAULT_LIMIT = 100;
+
+	private JournalCli() {
+	}
+
+	/**
+	 * @param args journal directory and options
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			usage("No journal directory was provided.");
+		}
+
+		JournalQuery query = new JournalQuery().newestFirst();
+		int hours = DEFAULT_HOURS;
+		int limit = DEFAULT_LIMIT;
+		boolean countOnly = false;
+
+		for (int i = 1; i < args.length; i++) {
+			String option = args[i];
+			if ("-c".equals(option)) {
+				countOnly = true;
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				usage("Missing value for " + option);
+			}
+			String value = args[++i];
+			try {
+				switch (option) {
+				case "-d":
+					query.dataStore(value);
+					break;
+				case "-s":
+					query.subscription(value);
+					break;
+				case "-o":
+					List<MirroringOutcome> outcomes = new ArrayList<>();
+					for (String outcome : value.split(",")) {
+						outcomes.add(MirroringOutcome.valueOf(outcome.trim().toUpperCase()));
+					}
+					query.outcomes(outcomes.toArray(new MirroringOutcome[0]));
+					break;
+				case "-h":
+					hours = Integer.parseInt(value);
+					break;
+				case "-n":
+					limit = Integer.parseInt(value);
+					break;
+				default:
+					usage("Unknown option " + option);
+				}
+			} catch (IllegalArgumentException e) {
+				usage("Invalid value " + value + " for " + option);
+			}
+		}
+		if (hours > 0) {
+			query.last(hours, TimeUnit.HOURS);
+		}
+
+		try (JournalReader reader = new JournalReader(Paths.get(args[0]))) {
+			long start = System.nanoTime();
+			int found;
+			if (countOnly) {
+				found = reader.count(query);
+			} else {
+				found = reader.query(query.limit(limit), System.out::println);
+			}
+			System.out.printf("%d records in %.1f ms%n", found, (System.nanoTime() - start) / 1e6);
+		}
+	}
+
+	private static void usage(String error) {
+		System.err.println(error);
+		System.err.println("Usage: JournalCli journalDirectory [-d datastore] [-s subscription] "
+				+ "[-o outcome,...] [-h hours] [-n records] [-c]");
+		System.exit(-1);
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.util.concurrent.TimeUnit;
+
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * Criteria for reading the restart journal.  Every criterion is optional; an empty 
+ * query returns every record, oldest first.
+ * 
+ * <pre>
+ * new JournalQuery().subscription("SUB1").outcomes(MirroringOutcome.STARTED).last(24, TimeUnit.HOURS)
+ * </pre>
+ *
+ * @author dlema
+ */
+public class JournalQuery {
+
+	private static final int ALL_OUTCOMES = (1 << MirroringOutcome.values().length) - 1;
+
+	private long from = 0;
+	private long to = Long.MAX_VALUE;
+	private String dataStore;
+	private String subscription;
+	private int outcomes = ALL_OUTCOMES;
+	private int limit = Integer.MAX_VALUE;
+	private boolean newestFirst = false;
+
+	/**
+	 * @param from earliest record time, in milliseconds since the epoch (inclusive)
+	 * @return this query
+	 */
+	public JournalQuery from(long from) {
+		this.from = from;
+		return this;
+	}
+
+	/**
+	 * @param to latest record time, in milliseconds since the epoch (exclusive)
+	 * @return this query
+	 */
+	public JournalQuery to(long to) {
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * Keeps the records of the last period of time, until now
+	 *
+	 * @return this query
+	 */
+	public JournalQuery last(long duration, TimeUnit unit) {
+		return from(System.currentTimeMillis() - unit.toMillis(duration));
+	}
+
+	/**
+	 * @param dataStore source datastore name
+	 * @return this query
+	 */
+	public JournalQuery dataStore(String dataStore) {
+		this.dataStore = dataStore;
+		return this;
+	}
+
+	/**
+	 * @param subscription subscription name
+	 * @return this query
+	 */
+	public JournalQuery subscription(String subscription) {
+		this.subscription = subscription;
+		return this;
+	}
+
+	/**
+	 * @param outcomes outcomes to keep, all of them if none is given
+	 * @return this query
+	 */
+	public JournalQuery outcomes(MirroringOutcome... outcomes) {
+		this.outcomes = outcomes.length == 0 ? ALL_OUTCOMES : 0;
+		for (MirroringOutcome outcome : outcomes) {
+			this.outcomes |= 1 << outcome.ordinal();
+		}
+		return this;
+	}
+
+	/**
+	 * @param limit maximum number of records returned
+	 * @return this query
+	 */
+	public JournalQuery limit(int limit) {
+		this.limit = limit;
+		return this;
+	}
+
+	/**
+	 * Returns the most recent records first, so a limit keeps the latest ones
+	 *
+	 * @return this query
+	 */
+	public JournalQuery newestFirst() {
+		this.newestFirst = true;
+		return this;
+	}
+
+	long getFrom() {
+		return from;
+	}
+
+	long getTo() {
+		return to;
+	}
+
+	byte[] getDataStore() {
+		return dataStore != null ? JournalSegment.encode(dataStore, JournalSegment.DATASTORE_SIZE) : null;
+	}
+
+	byte[] getSubscription() {
+		return subscription != null ? JournalSegment.encode(subscription, JournalSegment.SUBSCRIPTION_SIZE) : null;
+	}
+
+	int getOutcomes() {
+		return outcomes;
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	boolean isNewestFirst() {
+		return newestFirst;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads the restart journal of a directory.  The files are mapped once and the records
+ * present when the reader was opened are searched: a binary search finds the first 
+ * record of the period, and only the records of the period are compared with the 
+ * query, without decoding them.  The journal may be written at the same time by a 
+ * running service; open a new reader to see the records written since.
+ *
+ * @author dlema
+ */
+public class JournalReader implements Closeable {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(JournalReader.class.getName());
+
+	private final List<JournalSegment> segments = new ArrayList<>();
+	private final List<Integer> sizes = new ArrayList<>();
+
+	/**
+	 * @param directory journal directory
+	 * @throws IOException if the directory or a journal file cannot be read
+	 */
+	public JournalReader(Path directory) throws IOException {
+		try {
+			for (Path file : RestartJournal.listSegments(directory)) {
+				JournalSegment segment = JournalSegment.openForRead(file);
+				segments.add(segment);
+				sizes.add(segment.size());
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		logger.debug("journal {} opened with {} files", directory, segments.size());
+	}
+
+	/**
+	 * Passes the records matching a query to an action
+	 *
+	 * @param query records to read
+	 * @param action receives each record, in time order or newest first as the query says
+	 * @return number of records passed to the action
+	 */
+	public int query(JournalQuery query, Consumer<JournalRecord> action) {
+		return scan(query, action);
+	}
+
+	/**
+	 * @param action receives each matching record, null to only count them
+	 */
+	private int scan(JournalQuery query, Consumer<JournalRecord> action) {
+		byte[] dataStore = query.getDataStore();
+		byte[] subscription = query.getSubscription();
+		int outcomes = query.getOutcomes();
+		int step = query.isNewestFirst() ? -1 : 1;
+		int found = 0;
+
+		int i = query.isNewestFirst() ? segments.size() - 1 : 0;
+		for (; i >= 0 && i < segments.size(); i += step) {
+			JournalSegment segment = segments.get(i);
+			int size = sizes.get(i);
+			if (size == 0 || segment.timestamp(size - 1) < query.getFrom() || segment.timestamp(0) >= query.getTo()) {
+				continue;
+			}
+			int first = segment.indexOf(query.getFrom(), size);
+			int end = segment.indexOf(query.getTo(), size);
+			for (int index = query.isNewestFirst() ? end - 1 : first; index >= first && index < end; index += step) {
+				if (segment.matches(index, dataStore, subscription, outcomes)) {
+					if (action != null) {
+						action.accept(segment.read(index));
+					}
+					if (++found >= query.getLimit()) {
+						return found;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @param query records to read
+	 * @return records matching the query
+	 */
+	public List<JournalRecord> list(JournalQuery query) {
+		List<JournalRecord> records = new ArrayList<>();
+		query(query, records::add);
+		return records;
+	}
+
+	/**
+	 * @param query records to count
+	 * @return number of records matching the query
+	 */
+	public int count(JournalQuery query) {
+		return scan(query, null);
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (JournalSegment segment : segments) {
+			segment.close();
+		}
+		segments.clear();
+		sizes.clear();
+	}
+}
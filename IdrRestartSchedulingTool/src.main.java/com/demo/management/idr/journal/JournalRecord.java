@@ -0,0 +1,92 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * One subscription check read from the restart journal
+ *
+ * @author dlema
+ */
+public final class JournalRecord {
+
+	private final long timestamp;
+	private final String dataStore;
+	private final String subscription;
+	private final byte status;
+	private final MirroringOutcome outcome;
+	private final int durationMillis;
+
+	JournalRecord(long timestamp, String dataStore, String subscription, byte status, 
+			MirroringOutcome outcome, int durationMillis) {
+		this.timestamp = timestamp;
+		this.dataStore = dataStore;
+		this.subscription = subscription;
+		this.status = status;
+		this.outcome = outcome;
+		this.durationMillis = durationMillis;
+	}
+
+	/**
+	 * @return time the check ended, in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getDataStore() {
+		return dataStore;
+	}
+
+	public String getSubscription() {
+		return subscription;
+	}
+
+	/**
+	 * @return live status observed before acting, {@link RestartJournal#UNKNOWN_STATUS} if 
+	 * it could not be read
+	 */
+	public byte getStatus() {
+		return status;
+	}
+
+	public MirroringOutcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return time the check took, in milliseconds
+	 */
+	public int getDurationMillis() {
+		return durationMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %-8s %-30s status %2d %-9s %6d ms", 
+				new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(timestamp)),
+				dataStore, subscription, status, outcome, durationMillis);
+	}
+}
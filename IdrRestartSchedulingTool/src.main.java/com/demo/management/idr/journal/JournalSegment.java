@@ -0,0 +1,263 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * One file of the restart journal, mapped in memory.  The file is created with room for
+ * a fixed number of records of {@link #RECORD_SIZE} bytes:
+ * 
+ * <pre>
+ *  0  long  timestamp, written last so a record with timestamp 0 is not used yet
+ *  8  int   duration in milliseconds
+ * 12  byte  observed status
+ * 13  byte  outcome (MirroringOutcome ordinal)
+ * 14  byte  datastore name length
+ * 15  byte  subscription name length
+ * 16  24 bytes datastore name, UTF-8
+ * 40  40 bytes subscription name, UTF-8
+ * </pre>
+ * 
+ * Records are appended in timestamp order, so the used part of the file is found and 
+ * searched by time with a binary search.  Names longer than their field are truncated.
+ *
+ * @author dlema
+ */
+final class JournalSegment implements Closeable {
+
+	static final int RECORD_SIZE = 80;
+
+	static final int DATASTORE_SIZE = 24;
+	static final int SUBSCRIPTION_SIZE = 40;
+
+	private static final int TIMESTAMP = 0;
+	private static final int DURATION = 8;
+	private static final int STATUS = 12;
+	private static final int OUTCOME = 13;
+	private static final int DATASTORE_LENGTH = 14;
+	private static final int SUBSCRIPTION_LENGTH = 15;
+	private static final int DATASTORE = 16;
+	private static final int SUBSCRIPTION = DATASTORE + DATASTORE_SIZE;
+
+	private static final MirroringOutcome[] OUTCOMES = MirroringOutcome.values();
+
+	private final Path file;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+	private volatile int count;
+
+	private JournalSegment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+		this.file = file;
+		this.channel = channel;
+		this.buffer = buffer;
+		this.capacity = buffer.capacity() / RECORD_SIZE;
+		this.count = firstFree();
+	}
+
+	/**
+	 * Opens a journal file for appending, creating it with room for the given number of
+	 * records if it does not exist.
+	 */
+	static JournalSegment openForAppend(Path file, int capacity) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long size = Math.max(channel.size(), (long) capacity * RECORD_SIZE);
+			return new JournalSegment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens an existing journal file for reading
+	 */
+	static JournalSegment openForRead(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size() - channel.size() % RECORD_SIZE;
+			return new JournalSegment(file, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return index of the first record not written yet
+	 */
+	private int firstFree() {
+		int low = 0;
+		int high = capacity;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timestamp(middle) != 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Encodes a name for a field of the given size
+	 */
+	static byte[] encode(String name, int size) {
+		byte[] bytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		if (bytes.length <= size) {
+			return bytes;
+		}
+		byte[] truncated = new byte[size];
+		System.arraycopy(bytes, 0, truncated, 0, size);
+		return truncated;
+	}
+
+	/**
+	 * Appends a record.  Called by a single writer at a time.
+	 *
+	 * @param timestamp record time, not lower than the last one and never 0
+	 */
+	void append(long timestamp, byte[] dataStore, byte[] subscription, byte status, 
+			MirroringOutcome outcome, int durationMillis) {
+		int offset = count * RECORD_SIZE;
+		buffer.putInt(offset + DURATION, durationMillis);
+		buffer.put(offset + STATUS, status);
+		buffer.put(offset + OUTCOME, (byte) outcome.ordinal());
+		buffer.put(offset + DATASTORE_LENGTH, (byte) dataStore.length);
+		buffer.put(offset + SUBSCRIPTION_LENGTH, (byte) subscription.length);
+		for (int i = 0; i < dataStore.length; i++) {
+			buffer.put(offset + DATASTORE + i, dataStore[i]);
+		}
+		for (int i = 0; i < subscription.length; i++) {
+			buffer.put(offset + SUBSCRIPTION + i, subscription[i]);
+		}
+		buffer.putLong(offset + TIMESTAMP, timestamp);
+		count++;
+	}
+
+	long timestamp(int index) {
+		return buffer.getLong(index * RECORD_SIZE + TIMESTAMP);
+	}
+
+	/**
+	 * @return index of the first record at or after the given time, {@link #size()} if none
+	 */
+	int indexOf(long timestamp, int size) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timestamp(middle) < timestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares a record with a filter without decoding it
+	 *
+	 * @param dataStore encoded datastore name, null for any
+	 * @param subscription encoded subscription name, null for any
+	 * @param outcomes bit mask of accepted outcome ordinals
+	 */
+	boolean matches(int index, byte[] dataStore, byte[] subscription, int outcomes) {
+		int offset = index * RECORD_SIZE;
+		return (outcomes & (1 << buffer.get(offset + OUTCOME))) != 0
+				&& (dataStore == null || sameName(offset + DATASTORE_LENGTH, offset + DATASTORE, dataStore))
+				&& (subscription == null || sameName(offset + SUBSCRIPTION_LENGTH, offset + SUBSCRIPTION, subscription));
+	}
+
+	private boolean sameName(int lengthOffset, int nameOffset, byte[] name) {
+		if (buffer.get(lengthOffset) != name.length) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if (buffer.get(nameOffset + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	JournalRecord read(int index) {
+		int offset = index * RECORD_SIZE;
+		return new JournalRecord(
+				timestamp(index),
+				readName(offset + DATASTORE_LENGTH, offset + DATASTORE),
+				readName(offset + SUBSCRIPTION_LENGTH, offset + SUBSCRIPTION),
+				buffer.get(offset + STATUS),
+				OUTCOMES[buffer.get(offset + OUTCOME)],
+				buffer.getInt(offset + DURATION));
+	}
+
+	private String readName(int lengthOffset, int nameOffset) {
+		byte[] name = new byte[buffer.get(lengthOffset)];
+		for (int i = 0; i < name.length; i++) {
+			name[i] = buffer.get(nameOffset + i);
+		}
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return number of records written
+	 */
+	int size() {
+		return count;
+	}
+
+	boolean isFull() {
+		return count >= capacity;
+	}
+
+	Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Writes the changes in memory to the file
+	 */
+	void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Closes the file.  The memory stays mapped until the segment is garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
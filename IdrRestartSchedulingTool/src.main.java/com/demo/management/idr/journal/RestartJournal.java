@@ -0,0 +1,246 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.journal;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.demo.management.idr.model.Settings;
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * Append only journal of subscription checks.  Each check is a fixed size record 
+ * (time, datastore, subscription, observed status, outcome and duration) appended to 
+ * a memory mapped file, so recording costs a few memory writes and no system call.
+ * When a file is full the next one is started, and the oldest files beyond 
+ * journalMaxSegments are deleted.  The journal is read with {@link JournalReader} or
+ * from the command line with {@link JournalCli}.
+ * 
+ * Journaling is best effort: if a journal file cannot be created the error is logged,
+ * the journal is turned off and checks go on.
+ *
+ * @author dlema
+ */
+public class RestartJournal {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(RestartJournal.class.getName());
+
+	/** status recorded when the live status could not be read */
+	public static final byte UNKNOWN_STATUS = 0;
+
+	private static final String FILE_PREFIX = "restart-";
+	private static final String FILE_SUFFIX = ".journal";
+
+	private static final RestartJournal instance = new RestartJournal();
+
+	private Path directory;
+	private int segmentRecords = Settings.DEFAULT_JOURNAL_SEGMENT_RECORDS;
+	private int maxSegments = Settings.DEFAULT_JOURNAL_MAX_SEGMENTS;
+	private volatile boolean activeChecks = false;
+
+	// file being written, null when the journal is off
+	private volatile JournalSegment current;
+	private long sequence;
+	private long lastTimestamp;
+
+	RestartJournal() {
+	}
+
+	/**
+	 * @return the journal shared by all jobs
+	 */
+	public static RestartJournal getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the journal settings of a new configuration, opening the journal directory
+	 * or switching to another one if it changed.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public synchronized void configure(Settings settings) {
+		segmentRecords = Math.max(settings.getJournalSegmentRecords(), 1);
+		maxSegments = settings.getJournalMaxSegments();
+		activeChecks = settings.isJournalActiveChecks();
+
+		String name = settings.getJournalDirectory();
+		Path newDirectory = name != null && !name.trim().isEmpty() ? Paths.get(name.trim()).toAbsolutePath() : null;
+		if (newDirectory == null ? directory == null : newDirectory.equals(directory) && current != null) {
+			return;
+		}
+
+		close();
+		directory = newDirectory;
+		if (directory == null) {
+			logger.info("Restart journal is off");
+			return;
+		}
+		try {
+			Files.createDirectories(directory);
+			List<Path> files = listSegments(directory);
+			if (files.isEmpty()) {
+				sequence = 0;
+				startSegment();
+			} else {
+				Path last = files.get(files.size() - 1);
+				sequence = sequenceOf(last);
+				current = JournalSegment.openForAppend(last, segmentRecords);
+				lastTimestamp = current.size() > 0 ? current.timestamp(current.size() - 1) : 0;
+				if (current.isFull()) {
+					rollOver();
+				}
+			}
+			logger.info("Restart journal {} opened, writing {}", directory, current.getFile().getFileName());
+		} catch (IOException e) {
+			logger.error("Restart journal {} could not be opened. Checks will not be journaled", directory, e);
+			close();
+		}
+	}
+
+	/**
+	 * Records a subscription check.  Checks that found the subscription active are 
+	 * recorded only if journalActiveChecks is set.
+	 *
+	 * @param dataStore source datastore
+	 * @param subscription subscription name
+	 * @param status live status observed, {@link #UNKNOWN_STATUS} if it was not read
+	 * @param outcome outcome of the check
+	 * @param nanos time the check took, in nanoseconds.  For the outcome of a restart 
+	 * verification, time from the restart until the subscription was found active or 
+	 * the verification gave up.
+	 */
+	public void record(String dataStore, String subscription, byte status, MirroringOutcome outcome, long nanos) {
+		if (current == null || (outcome == MirroringOutcome.ACTIVE && !activeChecks)) {
+			return;
+		}
+		byte[] encodedDataStore = JournalSegment.encode(dataStore, JournalSegment.DATASTORE_SIZE);
+		byte[] encodedSubscription = JournalSegment.encode(subscription, JournalSegment.SUBSCRIPTION_SIZE);
+		int millis = (int) Math.min(TimeUnit.NANOSECONDS.toMillis(nanos), Integer.MAX_VALUE);
+
+		synchronized (this) {
+			if (current == null) {
+				return;
+			}
+			try {
+				if (current.isFull()) {
+					rollOver();
+				}
+				// records stay in time order even if the clock goes back
+				lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+				current.append(lastTimestamp, encodedDataStore, encodedSubscription, status, outcome, millis);
+			} catch (IOException e) {
+				logger.error("Restart journal file could not be created. Checks will not be journaled", e);
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Writes the journal to disk and closes it.  Used when the service stops.
+	 */
+	public synchronized void close() {
+		JournalSegment segment = current;
+		current = null;
+		if (segment != null) {
+			closeSegment(segment);
+		}
+	}
+
+	/**
+	 * @return directory of the journal, null when it is off
+	 */
+	public synchronized Path getDirectory() {
+		return current != null ? directory : null;
+	}
+
+	private void rollOver() throws IOException {
+		JournalSegment full = current;
+		current = null;
+		closeSegment(full);
+		startSegment();
+		deleteOldSegments();
+	}
+
+	private void startSegment() throws IOException {
+		sequence++;
+		Path file = directory.resolve(String.format("%s%010d%s", FILE_PREFIX, sequence, FILE_SUFFIX));
+		current = JournalSegment.openForAppend(file, segmentRecords);
+		logger.debug("restart journal file {} started", file);
+	}
+
+	private static void closeSegment(JournalSegment segment) {
+		try {
+			segment.force();
+			segment.close();
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Restart journal file {} was not closed cleanly", segment.getFile(), e);
+		}
+	}
+
+	private void deleteOldSegments() throws IOException {
+		if (maxSegments <= 0) {
+			return;
+		}
+		List<Path> files = listSegments(directory);
+		for (int i = 0; i < files.size() - maxSegments; i++) {
+			try {
+				Files.delete(files.get(i));
+				logger.info("Restart journal file {} deleted", files.get(i));
+			} catch (IOException e) {
+				logger.warn("Restart journal file {} could not be deleted", files.get(i), e);
+			}
+		}
+	}
+
+	/**
+	 * @return files of a journal directory, oldest first
+	 * @throws IOException if the directory cannot be read
+	 */
+	static List<Path> listSegments(Path directory) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	private static long sequenceOf(Path file) {
+		String name = file.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import com.datamirror.ea.api.ApiException;
+
+/**
+ * Latency histograms and error counters of the Access Server calls made by the
+ * restart path, by operation and datastore.  Published through JMX and, when enabled,
+ * the Prometheus endpoint.
+ *
+ * @author dlema
+ */
+public class AccessServerMetrics implements AccessServerMetricsMXBean, MetricsSource {
+
+	// operations
+	public static final String CONNECT_ACCESS_SERVER = "connectAccessServer";
+	public static final String CONNECT_DATASTORE = "connectDatastore";
+	public static final String GET_SUBSCRIPTION = "getSubscription";
+	public static final String GET_LIVE_ACTIVITY_STATUS = "getLiveActivityStatus";
+	public static final String START_MIRROR = "startMirror";
+	public static final String DISCONNECT_ACCESS_SERVER = "disconnectAccessServer";
+
+	// datastore tag for calls not related to a datastore
+	public static final String NO_DATASTORE = "-";
+
+	// JMX object name
+	public static final String OBJECT_NAME = "com.demo.management.idr:type=AccessServerMetrics";
+
+	private static final String LATENCY = "idr_access_server_call_duration_seconds";
+	private static final String ERRORS = "idr_access_server_call_errors_total";
+
+	private static final AccessServerMetrics instance = new AccessServerMetrics();
+
+	private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Access Server API call
+	 *
+	 * @param <T> result of the call
+	 */
+	@FunctionalInterface
+	public interface ApiCall<T> {
+		T call() throws ApiException;
+	}
+
+	/**
+	 * Access Server API call without result
+	 */
+	@FunctionalInterface
+	public interface VoidApiCall {
+		void call() throws ApiException;
+	}
+
+	AccessServerMetrics() {
+	}
+
+	/**
+	 * @return the metrics shared by the whole process
+	 */
+	public static AccessServerMetrics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Runs a call, recording its latency and whether it failed.
+	 *
+	 * @param operation one of the operation constants
+	 * @param dataStore datastore the call works on, {@link #NO_DATASTORE} if none
+	 * @param call the call
+	 * @return result of the call
+	 * @throws ApiException if the call fails
+	 */
+	public <T> T time(String operation, String dataStore, ApiCall<T> call) throws ApiException {
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			T result = call.call();
+			error = false;
+			return result;
+		} finally {
+			record(operation, dataStore, System.nanoTime() - start, error);
+		}
+	}
+
+	/**
+	 * Runs a call without result, recording its latency and whether it failed.
+	 *
+	 * @see #time(String, String, ApiCall)
+	 */
+	public void run(String operation, String dataStore, VoidApiCall call) throws ApiException {
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			call.call();
+			error = false;
+		} finally {
+			record(operation, dataStore, System.nanoTime() - start, error);
+		}
+	}
+
+	/**
+	 * @param operation one of the operation constants
+	 * @param dataStore datastore the call works on
+	 * @param nanos duration of the call
+	 * @param error true if the call failed
+	 */
+	public void record(String operation, String dataStore, long nanos, boolean error) {
+		Key key = new Key(operation, dataStore != null ? dataStore : NO_DATASTORE);
+		LatencyHistogram histogram = histograms.get(key);
+		if (histogram == null) {
+			histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+		}
+		histogram.record(nanos, error);
+	}
+
+	/**
+	 * @return histogram of an operation on a datastore, null if it was never called
+	 */
+	public LatencyHistogram getHistogram(String operation, String dataStore) {
+		return histograms.get(new Key(operation, dataStore));
+	}
+
+	@Override
+	public Map<String, Long> getCallCounts() {
+		Map<String, Long> values = new TreeMap<>();
+		histograms.forEach((key, histogram) -> values.put(key.toString(), histogram.getCount()));
+		return values;
+	}
+
+	@Override
+	public Map<String, Long> getErrorCounts() {
+		Map<String, Long> values = new TreeMap<>();
+		histograms.forEach((key, histogram) -> values.put(key.toString(), histogram.getErrors()));
+		return values;
+	}
+
+	@Override
+	public Map<String, Double> getMeanLatencyMillis() {
+		return collect(LatencyHistogram::getMeanMillis);
+	}
+
+	@Override
+	public Map<String, Double> getP50LatencyMillis() {
+		return collect(histogram -> histogram.getQuantileMillis(0.5));
+	}
+
+	@Override
+	public Map<String, Double> getP99LatencyMillis() {
+		return collect(histogram -> histogram.getQuantileMillis(0.99));
+	}
+
+	private Map<String, Double> collect(ToDoubleFunction<LatencyHistogram> value) {
+		Map<String, Double> values = new TreeMap<>();
+		histograms.forEach((key, histogram) -> values.put(key.toString(), value.applyAsDouble(histogram)));
+		return values;
+	}
+
+	@Override
+	public String getPrometheusText() {
+		StringBuilder out = new StringBuilder();
+		writePrometheus(out);
+		return out.toString();
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		Map<Key, LatencyHistogram> sorted = new TreeMap<>(histograms);
+
+		out.append("# HELP ").append(LATENCY).append(" Latency of Access Server API calls\n");
+		out.append("# TYPE ").append(LATENCY).append(" histogram\n");
+		for (Map.Entry<Key, LatencyHistogram> entry : sorted.entrySet()) {
+			String labels = entry.getKey().labels();
+			LatencyHistogram histogram = entry.getValue();
+			long[] counts = histogram.getBucketCounts();
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+				String le = i < LatencyHistogram.BOUNDS.length ? Double.toString(LatencyHistogram.BOUNDS[i]) : "+Inf";
+				out.append(LATENCY).append("_bucket{").append(labels).append(",le=\"").append(le).append("\"} ")
+						.append(cumulative).append('\n');
+			}
+			out.append(LATENCY).append("_sum{").append(labels).append("} ").append(histogram.getSumSeconds()).append('\n');
+			out.append(LATENCY).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+		}
+
+		out.append("# HELP ").append(ERRORS).append(" Failed Access Server API calls\n");
+		out.append("# TYPE ").append(ERRORS).append(" counter\n");
+		for (Map.Entry<Key, LatencyHistogram> entry : sorted.entrySet()) {
+			out.append(ERRORS).append('{').append(entry.getKey().labels()).append("} ")
+					.append(entry.getValue().getErrors()).append('\n');
+		}
+	}
+
+	/**
+	 * Operation and datastore
+	 */
+	private static final class Key implements Comparable<Key> {
+
+		private final String operation;
+		private final String dataStore;
+
+		Key(String operation, String dataStore) {
+			this.operation = operation;
+			this.dataStore = dataStore;
+		}
+
+		String labels() {
+			return "operation=\"" + MetricsSource.escape(operation) + "\",datastore=\"" 
+					+ MetricsSource.escape(dataStore) + "\"";
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * operation.hashCode() + dataStore.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return operation.equals(other.operation) && dataStore.equals(other.dataStore);
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			int result = operation.compareTo(other.operation);
+			return result != 0 ? result : dataStore.compareTo(other.dataStore);
+		}
+
+		@Override
+		public String toString() {
+			return operation + "/" + dataStore;
+		}
+	}
+}
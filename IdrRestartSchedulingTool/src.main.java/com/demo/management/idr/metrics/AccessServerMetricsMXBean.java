@@ -0,0 +1,46 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the Access Server call metrics.  Keys are operation/datastore.
+ *
+ * @author dlema
+ */
+public interface AccessServerMetricsMXBean {
+
+	Map<String, Long> getCallCounts();
+
+	Map<String, Long> getErrorCounts();
+
+	Map<String, Double> getMeanLatencyMillis();
+
+	Map<String, Double> getP50LatencyMillis();
+
+	Map<String, Double> getP99LatencyMillis();
+
+	/**
+	 * @return all metrics in Prometheus text format
+	 */
+	String getPrometheusText();
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets, cheap enough to be updated on every call.  
+ * Bucket bounds follow the usual Prometheus defaults, from 5 milliseconds to 30 seconds.
+ *
+ * @author dlema
+ */
+public class LatencyHistogram {
+
+	// upper bounds of the buckets, in seconds
+	static final double[] BOUNDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+	private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+	static {
+		for (int i = 0; i < BOUNDS.length; i++) {
+			BOUND_NANOS[i] = (long) (BOUNDS[i] * TimeUnit.SECONDS.toNanos(1));
+		}
+	}
+
+	// one counter per bucket plus the overflow bucket
+	private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+	private final LongAdder sumNanos = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	public LatencyHistogram() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param nanos duration of a call, in nanoseconds
+	 * @param error true if the call failed
+	 */
+	public void record(long nanos, boolean error) {
+		int bucket = 0;
+		while (bucket < BOUND_NANOS.length && nanos > BOUND_NANOS[bucket]) {
+			bucket++;
+		}
+		buckets[bucket].increment();
+		sumNanos.add(nanos);
+		if (error) {
+			errors.increment();
+		}
+	}
+
+	/**
+	 * @return number of calls in each bucket, the last one for calls over the highest bound
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[buckets.length];
+		for (int i = 0; i < buckets.length; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/**
+	 * @return total time of all calls, in seconds
+	 */
+	public double getSumSeconds() {
+		return sumNanos.sum() / 1e9;
+	}
+
+	/**
+	 * @return mean latency, in milliseconds
+	 */
+	public double getMeanMillis() {
+		long count = getCount();
+		return count == 0 ? 0 : sumNanos.sum() / 1e6 / count;
+	}
+
+	/**
+	 * Estimates a quantile, interpolating inside the bucket where it falls.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return estimated latency, in milliseconds.  Calls over the highest bound count as 
+	 * the highest bound
+	 */
+	public double getQuantileMillis(double quantile) {
+		long[] counts = getBucketCounts();
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		double rank = quantile * total;
+		long seen = 0;
+		for (int i = 0; i < BOUNDS.length; i++) {
+			if (seen + counts[i] >= rank && counts[i] > 0) {
+				double lower = i == 0 ? 0 : BOUNDS[i - 1];
+				return (lower + (BOUNDS[i] - lower) * (rank - seen) / counts[i]) * 1000;
+			}
+			seen += counts[i];
+		}
+		return BOUNDS[BOUNDS.length - 1] * 1000;
+	}
+}
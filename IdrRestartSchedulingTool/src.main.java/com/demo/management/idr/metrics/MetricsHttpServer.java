@@ -0,0 +1,114 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the metrics of the registered sources in Prometheus text format at
+ * http://localhost:port/metrics.  It listens on the loopback address only.
+ *
+ * @author dlema
+ */
+public class MetricsHttpServer {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(MetricsHttpServer.class.getName());
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final List<MetricsSource> sources = new CopyOnWriteArrayList<>();
+	private HttpServer server;
+
+	/**
+	 * @param source metrics to be served
+	 */
+	public void addSource(MetricsSource source) {
+		sources.add(source);
+	}
+
+	/**
+	 * Starts listening.
+	 *
+	 * @param port local port
+	 * @throws IOException if the port cannot be used
+	 */
+	public synchronized void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+		log.info("Metrics available at http://localhost:{}/metrics", port);
+	}
+
+	/**
+	 * Stops listening
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+
+	/**
+	 * @return metrics of all sources in Prometheus text format
+	 */
+	public String scrape() {
+		StringBuilder out = new StringBuilder(4096);
+		for (MetricsSource source : sources) {
+			try {
+				source.writePrometheus(out);
+			} catch (RuntimeException e) {
+				log.warn("Metrics source {} failed", source.getClass().getName(), e);
+			}
+		}
+		return out.toString();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Percentiles of the samples recorded during the last window of time.  Keeps the most
+ * recent samples in a ring buffer, so memory stays fixed however many samples arrive;
+ * when more samples than the capacity arrive within the window, the oldest ones are
+ * dropped.  Percentiles are computed on demand, sorting a copy of the live samples.
+ *
+ * @author dlema
+ */
+public class RollingPercentiles {
+
+	private final long[] values;
+	private final long[] times;
+	private final long windowMillis;
+	private int next = 0;
+	private int size = 0;
+
+	/**
+	 * @param capacity maximum number of samples kept
+	 * @param windowMillis age after which samples are ignored, in milliseconds
+	 */
+	public RollingPercentiles(int capacity, long windowMillis) {
+		this.values = new long[capacity];
+		this.times = new long[capacity];
+		this.windowMillis = windowMillis;
+	}
+
+	/**
+	 * @param value sample value
+	 */
+	public synchronized void record(long value) {
+		values[next] = value;
+		times[next] = System.currentTimeMillis();
+		next = (next + 1) % values.length;
+		if (size < values.length) {
+			size++;
+		}
+	}
+
+	/**
+	 * @param quantiles requested quantiles, between 0 and 1
+	 * @return value of each quantile over the samples of the window, 0 if there are none
+	 */
+	public long[] getPercentiles(double... quantiles) {
+		long[] live = snapshot();
+		long[] result = new long[quantiles.length];
+		if (live.length == 0) {
+			return result;
+		}
+		Arrays.sort(live);
+		for (int i = 0; i < quantiles.length; i++) {
+			int index = (int) Math.ceil(quantiles[i] * live.length) - 1;
+			result[i] = live[Math.min(Math.max(index, 0), live.length - 1)];
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of samples in the window
+	 */
+	public int getCount() {
+		return snapshot().length;
+	}
+
+	private synchronized long[] snapshot() {
+		long oldest = System.currentTimeMillis() - windowMillis;
+		long[] live = new long[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (times[i] >= oldest) {
+				live[count++] = values[i];
+			}
+		}
+		return Arrays.copyOf(live, count);
+	}
+}
@@ -43,16 +43,20 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 @XmlRootElement(name = "configuration")
-@XmlType(propOrder = {"accessServer", "port", "userId", "password", "subscriptions"})
+@XmlType(propOrder = {"accessServer", "port", "userId", "password", "settings", "subscriptions"})
 public class Configuration {
 	
 	// Definición de logger
 	private static final Logger log = LogManager.getLogger(Configuration.class.getName());
+	
+	// JAXB context, created on first use
+	private static JAXBContext context;
 
 	private StringProperty accessServer = new SimpleStringProperty();
 	private StringProperty port = new SimpleStringProperty();
 	private StringProperty userId = new SimpleStringProperty();
 	private StringProperty password = new SimpleStringProperty();
+	private Settings settings = new Settings();
 	
 	private ObservableList<Subscription> subscriptions = FXCollections.observableArrayList();
 	
@@ -119,6 +123,15 @@ public class Configuration {
 		return password;
 	}
 	
+	@XmlElement(name = "settings")
+	public Settings getSettings() {
+		return settings;
+	}
+	
+	public void setSettings(Settings settings) {
+		this.settings = settings != null ? settings : new Settings();
+	}
+	
 	/**
 	 * @return String representation for the configuration
 	 */
@@ -129,6 +142,7 @@ public class Configuration {
 		sb.append("\nPort number: " + this.getPort());
 		sb.append("\nUser Id: " + this.getUserId());
 		sb.append("\nPassword: " + this.getPassword());
+		sb.append("\nSettings:\n" + settings.toString());
 		sb.append("\nSubscripciones:");
 		
 		for (Subscription node : subscriptions) {
@@ -147,8 +161,7 @@ public class Configuration {
 	public static void marshal(Configuration configuration, File file) {
 		log.traceEntry();
 		try {
-			JAXBContext context = JAXBContext.newInstance(Configuration.class);
-			Marshaller marshaller = context.createMarshaller();
+			Marshaller marshaller = getContext().createMarshaller();
 			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 			marshaller.marshal(configuration, file);
 		} catch (JAXBException e) {
@@ -169,13 +182,11 @@ public class Configuration {
 	 */
 	public static Configuration unmarshal(File file) {
 		try {
-			log.traceEntry(file.toString());
-			JAXBContext context = JAXBContext.newInstance(Configuration.class);
-			Unmarshaller unmarshaller = context.createUnmarshaller();
+			log.traceEntry("{}", file);
+			Unmarshaller unmarshaller = getContext().createUnmarshaller();
 			
 			Configuration configuration = (Configuration)unmarshaller.unmarshal(file);
-			log.traceExit(configuration.toString());
-			return configuration;
+			return log.traceExit(configuration);
 		} catch (UnmarshalException e) {
 			log.error(e);
 			log.warn("Configuration file {} was not read. It does not exists or is invalid.  "
@@ -186,4 +197,15 @@ public class Configuration {
 		}
 		return log.traceExit((Configuration)null);
 	}
+	
+	/**
+	 * Builds the JAXB context the first time it is needed and keeps it, since creating
+	 * it is expensive and the context is thread safe.
+	 */
+	private static synchronized JAXBContext getContext() throws JAXBException {
+		if (context == null) {
+			context = JAXBContext.newInstance(Configuration.class);
+		}
+		return context;
+	}
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Concurrency limit for a single datastore, overriding the default one in {@link Settings}.
+ *
+ * @author dlema
+ */
+@XmlType(name = "dataStoreLimit")
+public class DataStoreLimit {
+
+	private String name;
+	private int maxConcurrentJobs;
+
+	public DataStoreLimit() {
+	}
+
+	public DataStoreLimit(String name, int maxConcurrentJobs) {
+		this.name = name;
+		this.maxConcurrentJobs = maxConcurrentJobs;
+	}
+
+	/**
+	 * @return datastore name
+	 */
+	@XmlAttribute(name = "name")
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return maximum number of jobs using the datastore at the same time, 0 for no limit
+	 */
+	@XmlAttribute(name = "maxConcurrentJobs")
+	public int getMaxConcurrentJobs() {
+		return maxConcurrentJobs;
+	}
+
+	public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+		this.maxConcurrentJobs = maxConcurrentJobs;
+	}
+
+	@Override
+	public String toString() {
+		return name + "=" + maxConcurrentJobs;
+	}
+}
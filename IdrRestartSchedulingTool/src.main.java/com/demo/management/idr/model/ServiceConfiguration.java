@@ -0,0 +1,184 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Read only view of the configuration file used by the scheduler service.  It reads
+ * the same XML as {@link Configuration}, but without JavaFX properties or observable
+ * lists, so the headless service does not need them at runtime.
+ *
+ * @author dlema
+ */
+@XmlRootElement(name = "configuration")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "serviceConfiguration", propOrder = {"accessServer", "port", "userId", "password", "settings", "subscriptions"})
+public final class ServiceConfiguration {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(ServiceConfiguration.class.getName());
+
+	// JAXB context, created on first use
+	private static JAXBContext context;
+
+	@XmlElement(name = "accessServer")
+	private String accessServer;
+
+	@XmlElement(name = "port")
+	private String port;
+
+	@XmlElement(name = "userId")
+	private String userId;
+
+	@XmlElement(name = "password")
+	private String password;
+
+	@XmlElement(name = "settings")
+	private Settings settings = new Settings();
+
+	@XmlElementWrapper(name = "subscriptions")
+	@XmlElement(name = "subscription")
+	private List<ServiceSubscription> subscriptions = new ArrayList<>();
+
+	/**
+	 * Used by JAXB only
+	 */
+	private ServiceConfiguration() {
+	}
+
+	/**
+	 * Creates a configuration without subscriptions, as handed out by 
+	 * {@link ServiceConfigurationReader} before streaming the subscriptions.
+	 */
+	public ServiceConfiguration(String accessServer, String port, String userId, String password,
+			Settings settings) {
+		this(accessServer, port, userId, password, settings, Collections.<ServiceSubscription>emptyList());
+	}
+
+	public ServiceConfiguration(String accessServer, String port, String userId, String password,
+			Settings settings, List<ServiceSubscription> subscriptions) {
+		this.accessServer = accessServer;
+		this.port = port;
+		this.userId = userId;
+		this.password = password;
+		this.settings = settings != null ? settings : new Settings();
+		this.subscriptions = new ArrayList<>(subscriptions);
+	}
+
+	public String getAccessServer() {
+		return accessServer;
+	}
+
+	public String getPort() {
+		return port;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public Settings getSettings() {
+		return settings != null ? settings : new Settings();
+	}
+
+	public List<ServiceSubscription> getSubscriptions() {
+		return Collections.unmodifiableList(subscriptions);
+	}
+
+	/**
+	 * @return String representation for the configuration
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Access Server: ").append(accessServer);
+		sb.append("\nPort number: ").append(port);
+		sb.append("\nUser Id: ").append(userId);
+		sb.append("\nPassword: ").append(password);
+		sb.append("\nSettings:\n").append(getSettings());
+		sb.append("\nSubscripciones:");
+
+		for (ServiceSubscription node : subscriptions) {
+			sb.append("\n\tSuscription:").append(node);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Loads IdrSchedulerService configuration file.  IdrSchedulerService configuration file
+	 * is an XML file describing the subscriptions to be monitored and restarted.
+	 *
+	 * @param file the configuration file
+	 * @return ServiceConfiguration, null if the configuration file was not found, could not be read or
+	 * is invalid
+	 */
+	public static ServiceConfiguration unmarshal(File file) {
+		try {
+			log.traceEntry("{}", file);
+			Unmarshaller unmarshaller = getContext().createUnmarshaller();
+
+			ServiceConfiguration configuration = (ServiceConfiguration)unmarshaller.unmarshal(file);
+			log.info("Configuration file {} loaded with {} subscriptions", file, configuration.subscriptions.size());
+			return configuration;
+		} catch (UnmarshalException e) {
+			log.error(e);
+			log.warn("Configuration file {} was not read. It does not exists or is invalid.  "
+					+ "returns null", file.getAbsolutePath());
+		} catch (JAXBException e) {
+			log.error(e);
+			System.exit(-1);
+		}
+		return log.traceExit((ServiceConfiguration)null);
+	}
+
+	/**
+	 * Builds the JAXB context the first time it is needed and keeps it, since creating
+	 * it is expensive and the context is thread safe.
+	 */
+	static synchronized JAXBContext getContext() throws JAXBException {
+		if (context == null) {
+			context = JAXBContext.newInstance(ServiceConfiguration.class);
+		}
+		return context;
+	}
+}
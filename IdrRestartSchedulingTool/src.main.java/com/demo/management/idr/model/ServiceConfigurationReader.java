@@ -0,0 +1,219 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Streaming loader for the configuration file.  Instead of building the whole document,
+ * it reads the connection data first and then hands each {@code <subscription>} element
+ * to a {@link Handler} as soon as it is parsed, so only one subscription is held in
+ * memory at a time.
+ *
+ * The connection data and settings must appear before {@code <subscriptions>}, which is
+ * the order used when the file is saved by {@link Configuration#marshal}.  A file with
+ * any of them after the subscriptions is rejected as invalid, since the subscriptions
+ * were already handed over with the connection data read until then.
+ *
+ * @author dlema
+ */
+public final class ServiceConfigurationReader {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(ServiceConfigurationReader.class.getName());
+
+	// elements read into the configuration handed over before the first subscription
+	private static final Set<String> HEADER_ELEMENTS = new HashSet<>(Arrays.asList(
+			"accessServer", "port", "userId", "password", "settings"));
+
+	/**
+	 * Receives the content of the configuration file while it is read.
+	 *
+	 * @param <E> exception the handler may throw
+	 */
+	public interface Handler<E extends Exception> {
+
+		/**
+		 * Called once, before the first subscription, with the connection data and settings.
+		 *
+		 * @param configuration configuration without subscriptions
+		 * @throws E
+		 */
+		void configuration(ServiceConfiguration configuration) throws E;
+
+		/**
+		 * Called for each subscription, in file order.
+		 *
+		 * @param subscription subscription just read
+		 * @throws E
+		 */
+		void subscription(ServiceSubscription subscription) throws E;
+	}
+
+	private ServiceConfigurationReader() {
+	}
+
+	/**
+	 * Reads a configuration file, passing its subscriptions to the handler one by one.
+	 *
+	 * @param file the configuration file
+	 * @param handler receives the configuration and its subscriptions
+	 * @return the configuration without subscriptions, null if the file was not found, could not
+	 * be read or is invalid.  The handler may have received part of the subscriptions in that case.
+	 * @throws E if the handler fails
+	 */
+	public static <E extends Exception> ServiceConfiguration read(File file, Handler<E> handler) throws E {
+		log.traceEntry("{}", file);
+
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		try (InputStream input = Files.newInputStream(file.toPath())) {
+			XMLStreamReader reader = factory.createXMLStreamReader(input);
+			try {
+				ServiceConfiguration configuration = read(reader, handler);
+				return log.traceExit(configuration);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException | XMLStreamException | JAXBException e) {
+			log.error(e);
+			log.warn("Configuration file {} was not read. It does not exists or is invalid.  "
+					+ "returns null", file.getAbsolutePath());
+		}
+		return log.traceExit((ServiceConfiguration)null);
+	}
+
+	private static <E extends Exception> ServiceConfiguration read(XMLStreamReader reader, Handler<E> handler)
+			throws XMLStreamException, JAXBException, E {
+		Unmarshaller unmarshaller = ServiceConfiguration.getContext().createUnmarshaller();
+
+		reader.nextTag();
+		reader.require(XMLStreamConstants.START_ELEMENT, null, "configuration");
+
+		String accessServer = null;
+		String port = null;
+		String userId = null;
+		String password = null;
+		Settings settings = null;
+		ServiceConfiguration configuration = null;
+		int count = 0;
+
+		int event = reader.nextTag();
+		while (event == XMLStreamConstants.START_ELEMENT) {
+			if (configuration != null && HEADER_ELEMENTS.contains(reader.getLocalName())) {
+				throw new XMLStreamException("Element <" + reader.getLocalName() 
+						+ "> must come before <subscriptions>", reader.getLocation());
+			}
+			switch (reader.getLocalName()) {
+			case "accessServer":
+				accessServer = reader.getElementText();
+				event = reader.nextTag();
+				break;
+			case "port":
+				port = reader.getElementText();
+				event = reader.nextTag();
+				break;
+			case "userId":
+				userId = reader.getElementText();
+				event = reader.nextTag();
+				break;
+			case "password":
+				password = reader.getElementText();
+				event = reader.nextTag();
+				break;
+			case "settings":
+				settings = unmarshaller.unmarshal(reader, Settings.class).getValue();
+				event = toTag(reader);
+				break;
+			case "subscriptions":
+				if (configuration == null) {
+					configuration = new ServiceConfiguration(accessServer, port, userId, password, settings);
+					handler.configuration(configuration);
+				}
+				event = reader.nextTag();
+				while (event == XMLStreamConstants.START_ELEMENT) {
+					handler.subscription(unmarshaller.unmarshal(reader, ServiceSubscription.class).getValue());
+					count++;
+					event = toTag(reader);
+				}
+				event = reader.nextTag();
+				break;
+			default:
+				log.warn("Unknown element {} in configuration file is ignored", reader.getLocalName());
+				skipElement(reader);
+				event = reader.nextTag();
+				break;
+			}
+		}
+
+		if (configuration == null) {
+			configuration = new ServiceConfiguration(accessServer, port, userId, password, settings);
+			handler.configuration(configuration);
+		}
+		log.info("Configuration file read with {} subscriptions", count);
+		return configuration;
+	}
+
+	/**
+	 * Moves to the next start or end tag, unless the reader is already on one.  Used after
+	 * unmarshalling an element, which leaves the reader right after its end tag.
+	 */
+	private static int toTag(XMLStreamReader reader) throws XMLStreamException {
+		int event = reader.getEventType();
+		while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+			event = reader.next();
+		}
+		return event;
+	}
+
+	/**
+	 * Skips the current element and all its content, leaving the reader on its end tag.
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+}
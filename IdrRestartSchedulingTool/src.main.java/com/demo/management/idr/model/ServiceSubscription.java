@@ -0,0 +1,157 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Read only subscription used by the scheduler service.  Unlike {@link Subscription},
+ * which backs the JavaFX screens, it keeps plain fields and shares the strings that
+ * repeat across subscriptions (datastore, cron pattern and loader class).
+ *
+ * @author dlema
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "serviceSubscription", propOrder = {"subscriptionName", "sourceDataStore", "cronPattern", "loaderClass", "enabled", "dependsOn"})
+public final class ServiceSubscription {
+
+	@XmlAttribute(name = "subscriptionId")
+	private String subscriptionId;
+
+	@XmlElement(name = "subscriptionName")
+	private String subscriptionName;
+
+	@XmlElement(name = "sourceDataStore")
+	private String sourceDataStore;
+
+	@XmlElement(name = "cronPattern")
+	private String cronPattern;
+
+	@XmlElement(name = "loaderClass")
+	private String loaderClass;
+
+	@XmlElement(name = "enabled")
+	private boolean enabled;
+
+	// null when there are no dependencies, which is the usual case
+	@XmlElement(name = "dependsOn")
+	private List<String> dependsOn;
+
+	/**
+	 * Used by JAXB only
+	 */
+	private ServiceSubscription() {
+	}
+
+	public ServiceSubscription(
+			String subscriptionId,
+			String subscriptionName,
+			String sourceDataStore,
+			String cronPattern,
+			String loaderClass,
+			boolean enabled) {
+		this(subscriptionId, subscriptionName, sourceDataStore, cronPattern, loaderClass, enabled, null);
+	}
+
+	public ServiceSubscription(
+			String subscriptionId,
+			String subscriptionName,
+			String sourceDataStore,
+			String cronPattern,
+			String loaderClass,
+			boolean enabled,
+			List<String> dependsOn) {
+		this.subscriptionId = subscriptionId;
+		this.subscriptionName = subscriptionName;
+		this.sourceDataStore = intern(sourceDataStore);
+		this.cronPattern = intern(cronPattern);
+		this.loaderClass = intern(loaderClass);
+		this.enabled = enabled;
+		this.dependsOn = dependsOn == null || dependsOn.isEmpty() ? null : new ArrayList<>(dependsOn);
+	}
+
+	/**
+	 * JAXB callback.  Shares the repeated strings once the element has been read.
+	 */
+	@SuppressWarnings("unused")
+	private void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+		sourceDataStore = intern(sourceDataStore);
+		cronPattern = intern(cronPattern);
+		loaderClass = intern(loaderClass);
+	}
+
+	private static String intern(String value) {
+		return value != null ? value.intern() : null;
+	}
+
+	public String getSubscriptionId() {
+		return subscriptionId;
+	}
+
+	public String getSubscriptionName() {
+		return subscriptionName;
+	}
+
+	public String getSourceDataStore() {
+		return sourceDataStore;
+	}
+
+	public String getCronPattern() {
+		return cronPattern;
+	}
+
+	public String getLoaderClass() {
+		return loaderClass;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return ids of the subscriptions that must be mirroring before this one is restarted
+	 */
+	public List<String> getDependsOn() {
+		return dependsOn != null ? Collections.unmodifiableList(dependsOn) : Collections.<String>emptyList();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("\tSubscription Id: ").append(subscriptionId);
+		sb.append("\n\tSubscription name: ").append(subscriptionName);
+		sb.append("\n\tSource data store: ").append(sourceDataStore);
+		sb.append("\n\tCron Pattern: ").append(cronPattern);
+		sb.append("\n\tloader class: ").append(loaderClass);
+		sb.append("\n\tEnabled: ").append(enabled);
+		sb.append("\n\tDepends on: ").append(getDependsOn());
+		return sb.toString();
+	}
+}
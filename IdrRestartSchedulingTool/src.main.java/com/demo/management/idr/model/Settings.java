@@ -0,0 +1,670 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Optional tuning parameters for the scheduler service. Every element may be omitted
+ * from the configuration file, in which case its default value is used.
+ *
+ * @author dlema
+ */
+@XmlType(name = "settings", propOrder = {"configReloadQuietPeriod", "virtualThreads", "maxConcurrentJobs",
+		"maxConcurrentJobsPerAccessServer", "maxConcurrentJobsPerDataStore", "dataStoreLimits",
+		"staggerWindow",
+		"eventMonitoring", "monitorCoalescePeriod", "monitorReconnectInterval",
+		"adaptivePolling", "adaptivePollingMinInterval", "adaptivePollingMaxInterval",
+		"statusCacheTtl", "metricsPort",
+		"fireDelayWarningThreshold",
+		"journalDirectory", "journalSegmentRecords", "journalMaxSegments", "journalActiveChecks",
+		"connectTimeout", "dataStoreTimeout", "statusTimeout", "startTimeout", "jobTimeout",
+		"verifyDelays", "verifyThreads",
+		"breakerThreshold", "breakerBackoff", "breakerMaxBackoff",
+		"recoveryThreshold", "recoveryWindow", "recoveryThreads", "recoveryProbeInterval", "dependencyTimeout"})
+public class Settings {
+
+	// Default time the configuration file must stay unchanged before it is reloaded (in milliseconds)
+	public static final long DEFAULT_CONFIG_RELOAD_QUIET_PERIOD = 2000;
+
+	// Default number of jobs the scheduler runs at the same time
+	public static final int DEFAULT_MAX_CONCURRENT_JOBS = 10;
+
+	// Default number of jobs using the same Access Server at the same time (0: no limit)
+	public static final int DEFAULT_MAX_CONCURRENT_JOBS_PER_ACCESS_SERVER = 0;
+
+	// Default number of jobs using the same datastore at the same time (0: no limit)
+	public static final int DEFAULT_MAX_CONCURRENT_JOBS_PER_DATASTORE = 0;
+
+	// Default time status events of a datastore are collected before checking it (in milliseconds)
+	public static final long DEFAULT_MONITOR_COALESCE_PERIOD = 2000;
+
+	// Default wait before registering a lost monitor listener again (in milliseconds)
+	public static final long DEFAULT_MONITOR_RECONNECT_INTERVAL = 60000;
+
+	// Default interval for adaptive polling after a subscription was found stopped (in seconds)
+	public static final int DEFAULT_ADAPTIVE_POLLING_MIN_INTERVAL = 60;
+
+	// Default ceiling for the adaptive polling interval (in seconds)
+	public static final int DEFAULT_ADAPTIVE_POLLING_MAX_INTERVAL = 960;
+
+	// Default time a subscription status is reused by other checks (in milliseconds)
+	public static final long DEFAULT_STATUS_CACHE_TTL = 5000;
+
+	// Default fire delay p99 over which a warning is logged (in milliseconds)
+	public static final long DEFAULT_FIRE_DELAY_WARNING_THRESHOLD = 5000;
+
+	// Default number of records in each restart journal file
+	public static final int DEFAULT_JOURNAL_SEGMENT_RECORDS = 1000000;
+
+	// Default number of restart journal files kept
+	public static final int DEFAULT_JOURNAL_MAX_SEGMENTS = 30;
+
+	// Default deadline for connecting to the Access Server (in milliseconds)
+	public static final long DEFAULT_CONNECT_TIMEOUT = 30000;
+
+	// Default deadline for locating and connecting to a datastore (in milliseconds)
+	public static final long DEFAULT_DATASTORE_TIMEOUT = 60000;
+
+	// Default deadline for reading subscriptions and their status (in milliseconds)
+	public static final long DEFAULT_STATUS_TIMEOUT = 30000;
+
+	// Default deadline for starting a subscription and refreshing it (in milliseconds)
+	public static final long DEFAULT_START_TIMEOUT = 120000;
+
+	// Default deadline for a whole job (in milliseconds)
+	public static final long DEFAULT_JOB_TIMEOUT = 300000;
+
+	// Default times after a restart when the subscription status is probed (in milliseconds)
+	public static final String DEFAULT_VERIFY_DELAYS = "5000,15000,60000";
+
+	// Default number of threads probing restarted subscriptions
+	public static final int DEFAULT_VERIFY_THREADS = 2;
+
+	// Default number of consecutive connect failures that open a circuit breaker
+	public static final int DEFAULT_BREAKER_THRESHOLD = 3;
+
+	// Default time an open circuit breaker waits before letting a probe through (in milliseconds)
+	public static final long DEFAULT_BREAKER_BACKOFF = 5000;
+
+	// Default longest wait of an open circuit breaker (in milliseconds)
+	public static final long DEFAULT_BREAKER_MAX_BACKOFF = 300000;
+
+	// Default number of failed or stopped checks within the recovery window that start a recovery
+	public static final int DEFAULT_RECOVERY_THRESHOLD = 20;
+
+	// Default window in which failed or stopped checks are counted (in milliseconds)
+	public static final long DEFAULT_RECOVERY_WINDOW = 60000;
+
+	// Default number of subscriptions checked at the same time by a recovery pass
+	public static final int DEFAULT_RECOVERY_THREADS = 16;
+
+	// Default time between connectivity probes while in recovery mode (in milliseconds)
+	public static final long DEFAULT_RECOVERY_PROBE_INTERVAL = 5000;
+
+	// Default wait for a restarted subscription to become active before its dependents are restarted (in milliseconds)
+	public static final long DEFAULT_DEPENDENCY_TIMEOUT = 120000;
+
+	private long configReloadQuietPeriod = DEFAULT_CONFIG_RELOAD_QUIET_PERIOD;
+	private boolean virtualThreads = false;
+	private int maxConcurrentJobs = DEFAULT_MAX_CONCURRENT_JOBS;
+	private int maxConcurrentJobsPerAccessServer = DEFAULT_MAX_CONCURRENT_JOBS_PER_ACCESS_SERVER;
+	private int maxConcurrentJobsPerDataStore = DEFAULT_MAX_CONCURRENT_JOBS_PER_DATASTORE;
+	private List<DataStoreLimit> dataStoreLimits = new ArrayList<>();
+	private int staggerWindow = 0;
+	private boolean eventMonitoring = false;
+	private long monitorCoalescePeriod = DEFAULT_MONITOR_COALESCE_PERIOD;
+	private long monitorReconnectInterval = DEFAULT_MONITOR_RECONNECT_INTERVAL;
+	private boolean adaptivePolling = false;
+	private int adaptivePollingMinInterval = DEFAULT_ADAPTIVE_POLLING_MIN_INTERVAL;
+	private int adaptivePollingMaxInterval = DEFAULT_ADAPTIVE_POLLING_MAX_INTERVAL;
+	private long statusCacheTtl = DEFAULT_STATUS_CACHE_TTL;
+	private int metricsPort = 0;
+	private long fireDelayWarningThreshold = DEFAULT_FIRE_DELAY_WARNING_THRESHOLD;
+	private String journalDirectory = null;
+	private int journalSegmentRecords = DEFAULT_JOURNAL_SEGMENT_RECORDS;
+	private int journalMaxSegments = DEFAULT_JOURNAL_MAX_SEGMENTS;
+	private boolean journalActiveChecks = false;
+	private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	private long dataStoreTimeout = DEFAULT_DATASTORE_TIMEOUT;
+	private long statusTimeout = DEFAULT_STATUS_TIMEOUT;
+	private long startTimeout = DEFAULT_START_TIMEOUT;
+	private long jobTimeout = DEFAULT_JOB_TIMEOUT;
+	private String verifyDelays = DEFAULT_VERIFY_DELAYS;
+	private int verifyThreads = DEFAULT_VERIFY_THREADS;
+	private int breakerThreshold = DEFAULT_BREAKER_THRESHOLD;
+	private long breakerBackoff = DEFAULT_BREAKER_BACKOFF;
+	private long breakerMaxBackoff = DEFAULT_BREAKER_MAX_BACKOFF;
+	private int recoveryThreshold = DEFAULT_RECOVERY_THRESHOLD;
+	private long recoveryWindow = DEFAULT_RECOVERY_WINDOW;
+	private int recoveryThreads = DEFAULT_RECOVERY_THREADS;
+	private long recoveryProbeInterval = DEFAULT_RECOVERY_PROBE_INTERVAL;
+	private long dependencyTimeout = DEFAULT_DEPENDENCY_TIMEOUT;
+
+	/**
+	 * @return time the configuration file must stay unchanged before it is reloaded,
+	 * in milliseconds.  A file written without pause is reloaded after ten periods.
+	 * 0 reloads on every change event.
+	 */
+	@XmlElement(name = "configReloadQuietPeriod")
+	public long getConfigReloadQuietPeriod() {
+		return configReloadQuietPeriod;
+	}
+
+	public void setConfigReloadQuietPeriod(long configReloadQuietPeriod) {
+		this.configReloadQuietPeriod = configReloadQuietPeriod;
+	}
+
+	/**
+	 * @return true to run each job on its own virtual thread instead of a fixed pool of
+	 * platform threads.  Read only at startup.
+	 */
+	@XmlElement(name = "virtualThreads")
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * @return maximum number of jobs running at the same time.  It is the thread count
+	 * of the fixed pool, or the concurrency cap with virtual threads.  Read only at startup.
+	 */
+	@XmlElement(name = "maxConcurrentJobs")
+	public int getMaxConcurrentJobs() {
+		return maxConcurrentJobs;
+	}
+
+	public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+		this.maxConcurrentJobs = maxConcurrentJobs;
+	}
+
+	/**
+	 * @return maximum number of jobs using the same Access Server at the same time, 0 for
+	 * no limit
+	 */
+	@XmlElement(name = "maxConcurrentJobsPerAccessServer")
+	public int getMaxConcurrentJobsPerAccessServer() {
+		return maxConcurrentJobsPerAccessServer;
+	}
+
+	public void setMaxConcurrentJobsPerAccessServer(int maxConcurrentJobsPerAccessServer) {
+		this.maxConcurrentJobsPerAccessServer = maxConcurrentJobsPerAccessServer;
+	}
+
+	/**
+	 * @return maximum number of jobs using the same datastore at the same time, for 
+	 * datastores without their own limit.  0 for no limit
+	 */
+	@XmlElement(name = "maxConcurrentJobsPerDataStore")
+	public int getMaxConcurrentJobsPerDataStore() {
+		return maxConcurrentJobsPerDataStore;
+	}
+
+	public void setMaxConcurrentJobsPerDataStore(int maxConcurrentJobsPerDataStore) {
+		this.maxConcurrentJobsPerDataStore = maxConcurrentJobsPerDataStore;
+	}
+
+	/**
+	 * @return concurrency limits for specific datastores
+	 */
+	@XmlElementWrapper(name = "dataStoreLimits")
+	@XmlElement(name = "dataStoreLimit")
+	public List<DataStoreLimit> getDataStoreLimits() {
+		return dataStoreLimits;
+	}
+
+	public void setDataStoreLimits(List<DataStoreLimit> dataStoreLimits) {
+		this.dataStoreLimits = dataStoreLimits != null ? dataStoreLimits : new ArrayList<>();
+	}
+
+	/**
+	 * @return maximum delay added to the fire time of each trigger, in seconds, so 
+	 * subscriptions sharing a cron pattern do not fire together.  0 disables staggering
+	 */
+	@XmlElement(name = "staggerWindow")
+	public int getStaggerWindow() {
+		return staggerWindow;
+	}
+
+	public void setStaggerWindow(int staggerWindow) {
+		this.staggerWindow = staggerWindow;
+	}
+
+	/**
+	 * @return true to register a monitor listener for each source datastore and check
+	 * its subscriptions as soon as a status change is received.  Cron checks still run.
+	 */
+	@XmlElement(name = "eventMonitoring")
+	public boolean isEventMonitoring() {
+		return eventMonitoring;
+	}
+
+	public void setEventMonitoring(boolean eventMonitoring) {
+		this.eventMonitoring = eventMonitoring;
+	}
+
+	/**
+	 * @return time status events of a datastore are collected before checking it, 
+	 * in milliseconds
+	 */
+	@XmlElement(name = "monitorCoalescePeriod")
+	public long getMonitorCoalescePeriod() {
+		return monitorCoalescePeriod;
+	}
+
+	public void setMonitorCoalescePeriod(long monitorCoalescePeriod) {
+		this.monitorCoalescePeriod = monitorCoalescePeriod;
+	}
+
+	/**
+	 * @return wait before registering again a monitor listener that failed or was lost,
+	 * in milliseconds
+	 */
+	@XmlElement(name = "monitorReconnectInterval")
+	public long getMonitorReconnectInterval() {
+		return monitorReconnectInterval;
+	}
+
+	public void setMonitorReconnectInterval(long monitorReconnectInterval) {
+		this.monitorReconnectInterval = monitorReconnectInterval;
+	}
+
+	/**
+	 * @return true to check subscriptions at an interval that grows while they stay active,
+	 * instead of their cron pattern.  Applies to subscriptions using SimpleSubscriptionStarter.
+	 */
+	@XmlElement(name = "adaptivePolling")
+	public boolean isAdaptivePolling() {
+		return adaptivePolling;
+	}
+
+	public void setAdaptivePolling(boolean adaptivePolling) {
+		this.adaptivePolling = adaptivePolling;
+	}
+
+	/**
+	 * @return adaptive polling interval used at start and after a subscription was found
+	 * stopped, in seconds
+	 */
+	@XmlElement(name = "adaptivePollingMinInterval")
+	public int getAdaptivePollingMinInterval() {
+		return adaptivePollingMinInterval;
+	}
+
+	public void setAdaptivePollingMinInterval(int adaptivePollingMinInterval) {
+		this.adaptivePollingMinInterval = adaptivePollingMinInterval;
+	}
+
+	/**
+	 * @return longest adaptive polling interval, reached by subscriptions that stay active,
+	 * in seconds
+	 */
+	@XmlElement(name = "adaptivePollingMaxInterval")
+	public int getAdaptivePollingMaxInterval() {
+		return adaptivePollingMaxInterval;
+	}
+
+	public void setAdaptivePollingMaxInterval(int adaptivePollingMaxInterval) {
+		this.adaptivePollingMaxInterval = adaptivePollingMaxInterval;
+	}
+
+	/**
+	 * @return time a subscription status read from the Access Server is reused by other
+	 * checks, in milliseconds.  0 disables the status cache
+	 */
+	@XmlElement(name = "statusCacheTtl")
+	public long getStatusCacheTtl() {
+		return statusCacheTtl;
+	}
+
+	public void setStatusCacheTtl(long statusCacheTtl) {
+		this.statusCacheTtl = statusCacheTtl;
+	}
+
+	/**
+	 * @return local port serving metrics in Prometheus text format at /metrics.
+	 * 0 disables the endpoint.  Read only at startup.
+	 */
+	@XmlElement(name = "metricsPort")
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+
+	public void setMetricsPort(int metricsPort) {
+		this.metricsPort = metricsPort;
+	}
+
+	/**
+	 * @return fire delay p99 over which a warning is logged, in milliseconds.  0 disables
+	 * the warning
+	 */
+	@XmlElement(name = "fireDelayWarningThreshold")
+	public long getFireDelayWarningThreshold() {
+		return fireDelayWarningThreshold;
+	}
+
+	public void setFireDelayWarningThreshold(long fireDelayWarningThreshold) {
+		this.fireDelayWarningThreshold = fireDelayWarningThreshold;
+	}
+
+	/**
+	 * @return directory of the restart journal, null or empty to keep no journal
+	 */
+	@XmlElement(name = "journalDirectory")
+	public String getJournalDirectory() {
+		return journalDirectory;
+	}
+
+	public void setJournalDirectory(String journalDirectory) {
+		this.journalDirectory = journalDirectory;
+	}
+
+	/**
+	 * @return number of records in each journal file.  Each record takes 80 bytes.
+	 */
+	@XmlElement(name = "journalSegmentRecords")
+	public int getJournalSegmentRecords() {
+		return journalSegmentRecords;
+	}
+
+	public void setJournalSegmentRecords(int journalSegmentRecords) {
+		this.journalSegmentRecords = journalSegmentRecords;
+	}
+
+	/**
+	 * @return number of journal files kept.  The oldest file is deleted when a new one
+	 * is started.  0 keeps every file.
+	 */
+	@XmlElement(name = "journalMaxSegments")
+	public int getJournalMaxSegments() {
+		return journalMaxSegments;
+	}
+
+	public void setJournalMaxSegments(int journalMaxSegments) {
+		this.journalMaxSegments = journalMaxSegments;
+	}
+
+	/**
+	 * @return true to journal every check, false to journal only checks that found the
+	 * subscription stopped, missing or failing
+	 */
+	@XmlElement(name = "journalActiveChecks")
+	public boolean isJournalActiveChecks() {
+		return journalActiveChecks;
+	}
+
+	public void setJournalActiveChecks(boolean journalActiveChecks) {
+		this.journalActiveChecks = journalActiveChecks;
+	}
+
+	/**
+	 * @return deadline for connecting to the Access Server, in milliseconds.  0 means no deadline.
+	 */
+	@XmlElement(name = "connectTimeout")
+	public long getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(long connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @return deadline for locating a datastore and connecting to it, in milliseconds.  
+	 * 0 means no deadline.
+	 */
+	@XmlElement(name = "dataStoreTimeout")
+	public long getDataStoreTimeout() {
+		return dataStoreTimeout;
+	}
+
+	public void setDataStoreTimeout(long dataStoreTimeout) {
+		this.dataStoreTimeout = dataStoreTimeout;
+	}
+
+	/**
+	 * @return deadline for each call reading subscriptions or their status, in milliseconds.
+	 * 0 means no deadline.
+	 */
+	@XmlElement(name = "statusTimeout")
+	public long getStatusTimeout() {
+		return statusTimeout;
+	}
+
+	public void setStatusTimeout(long statusTimeout) {
+		this.statusTimeout = statusTimeout;
+	}
+
+	/**
+	 * @return deadline for starting a subscription and for refreshing it afterwards, in 
+	 * milliseconds.  0 means no deadline.
+	 */
+	@XmlElement(name = "startTimeout")
+	public long getStartTimeout() {
+		return startTimeout;
+	}
+
+	public void setStartTimeout(long startTimeout) {
+		this.startTimeout = startTimeout;
+	}
+
+	/**
+	 * @return deadline for a whole job, or for a mass recovery check waiting for concurrency
+	 * permits included, in milliseconds.  The deadline of each call is shortened so the job ends in time.  
+	 * 0 means no deadline.
+	 */
+	@XmlElement(name = "jobTimeout")
+	public long getJobTimeout() {
+		return jobTimeout;
+	}
+
+	public void setJobTimeout(long jobTimeout) {
+		this.jobTimeout = jobTimeout;
+	}
+
+	/**
+	 * @return comma separated times after a restart, in milliseconds, when the status of the 
+	 * subscription is read again to confirm it became active.  Empty for no verification.
+	 */
+	@XmlElement(name = "verifyDelays")
+	public String getVerifyDelays() {
+		return verifyDelays;
+	}
+
+	public void setVerifyDelays(String verifyDelays) {
+		this.verifyDelays = verifyDelays;
+	}
+
+	/**
+	 * @return number of threads probing restarted subscriptions
+	 */
+	@XmlElement(name = "verifyThreads")
+	public int getVerifyThreads() {
+		return verifyThreads;
+	}
+
+	public void setVerifyThreads(int verifyThreads) {
+		this.verifyThreads = verifyThreads;
+	}
+
+	/**
+	 * @return number of consecutive failures connecting to the Access Server, or to a datastore,
+	 * that open its circuit breaker.  0 turns circuit breakers off.
+	 */
+	@XmlElement(name = "breakerThreshold")
+	public int getBreakerThreshold() {
+		return breakerThreshold;
+	}
+
+	public void setBreakerThreshold(int breakerThreshold) {
+		this.breakerThreshold = breakerThreshold;
+	}
+
+	/**
+	 * @return time an open circuit breaker waits before letting a single probe through, in 
+	 * milliseconds.  It doubles each time the probe fails.
+	 */
+	@XmlElement(name = "breakerBackoff")
+	public long getBreakerBackoff() {
+		return breakerBackoff;
+	}
+
+	public void setBreakerBackoff(long breakerBackoff) {
+		this.breakerBackoff = breakerBackoff;
+	}
+
+	/**
+	 * @return longest time an open circuit breaker waits between probes, in milliseconds
+	 */
+	@XmlElement(name = "breakerMaxBackoff")
+	public long getBreakerMaxBackoff() {
+		return breakerMaxBackoff;
+	}
+
+	public void setBreakerMaxBackoff(long breakerMaxBackoff) {
+		this.breakerMaxBackoff = breakerMaxBackoff;
+	}
+
+	/**
+	 * @return number of checks that failed or found a subscription stopped, within the recovery 
+	 * window, that put the service in recovery mode.  0 turns recovery mode off.
+	 */
+	@XmlElement(name = "recoveryThreshold")
+	public int getRecoveryThreshold() {
+		return recoveryThreshold;
+	}
+
+	public void setRecoveryThreshold(int recoveryThreshold) {
+		this.recoveryThreshold = recoveryThreshold;
+	}
+
+	/**
+	 * @return window in which failed or stopped checks are counted, in milliseconds
+	 */
+	@XmlElement(name = "recoveryWindow")
+	public long getRecoveryWindow() {
+		return recoveryWindow;
+	}
+
+	public void setRecoveryWindow(long recoveryWindow) {
+		this.recoveryWindow = recoveryWindow;
+	}
+
+	/**
+	 * @return number of subscriptions checked at the same time by a recovery pass.  The 
+	 * concurrency limits still apply.
+	 */
+	@XmlElement(name = "recoveryThreads")
+	public int getRecoveryThreads() {
+		return recoveryThreads;
+	}
+
+	public void setRecoveryThreads(int recoveryThreads) {
+		this.recoveryThreads = recoveryThreads;
+	}
+
+	/**
+	 * @return time between connectivity probes while in recovery mode, in milliseconds
+	 */
+	@XmlElement(name = "recoveryProbeInterval")
+	public long getRecoveryProbeInterval() {
+		return recoveryProbeInterval;
+	}
+
+	public void setRecoveryProbeInterval(long recoveryProbeInterval) {
+		this.recoveryProbeInterval = recoveryProbeInterval;
+	}
+
+	/**
+	 * @return longest wait, in milliseconds, for a subscription started by a recovery pass to 
+	 * become active before the subscriptions depending on it are restarted
+	 */
+	@XmlElement(name = "dependencyTimeout")
+	public long getDependencyTimeout() {
+		return dependencyTimeout;
+	}
+
+	public void setDependencyTimeout(long dependencyTimeout) {
+		this.dependencyTimeout = dependencyTimeout;
+	}
+
+	/**
+	 * @param dataStore datastore name
+	 * @return maximum number of jobs using the datastore at the same time
+	 */
+	public int getMaxConcurrentJobs(String dataStore) {
+		for (DataStoreLimit limit : dataStoreLimits) {
+			if (limit.getName() != null && limit.getName().equals(dataStore)) {
+				return limit.getMaxConcurrentJobs();
+			}
+		}
+		return maxConcurrentJobsPerDataStore;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("\tConfig reload quiet period: " + getConfigReloadQuietPeriod());
+		sb.append("\n\tVirtual threads: " + isVirtualThreads());
+		sb.append("\n\tMax concurrent jobs: " + getMaxConcurrentJobs());
+		sb.append("\n\tMax concurrent jobs per Access Server: " + getMaxConcurrentJobsPerAccessServer());
+		sb.append("\n\tMax concurrent jobs per datastore: " + getMaxConcurrentJobsPerDataStore());
+		sb.append("\n\tDatastore limits: " + getDataStoreLimits());
+		sb.append("\n\tStagger window: " + getStaggerWindow());
+		sb.append("\n\tEvent monitoring: " + isEventMonitoring());
+		sb.append("\n\tMonitor coalesce period: " + getMonitorCoalescePeriod());
+		sb.append("\n\tMonitor reconnect interval: " + getMonitorReconnectInterval());
+		sb.append("\n\tAdaptive polling: " + isAdaptivePolling());
+		sb.append("\n\tAdaptive polling min interval: " + getAdaptivePollingMinInterval());
+		sb.append("\n\tAdaptive polling max interval: " + getAdaptivePollingMaxInterval());
+		sb.append("\n\tStatus cache TTL: " + getStatusCacheTtl());
+		sb.append("\n\tMetrics port: " + getMetricsPort());
+		sb.append("\n\tFire delay warning threshold: " + getFireDelayWarningThreshold());
+		sb.append("\n\tJournal directory: " + getJournalDirectory());
+		sb.append("\n\tJournal segment records: " + getJournalSegmentRecords());
+		sb.append("\n\tJournal max segments: " + getJournalMaxSegments());
+		sb.append("\n\tJournal active checks: " + isJournalActiveChecks());
+		sb.append("\n\tConnect timeout: " + getConnectTimeout());
+		sb.append("\n\tDatastore timeout: " + getDataStoreTimeout());
+		sb.append("\n\tStatus timeout: " + getStatusTimeout());
+		sb.append("\n\tStart timeout: " + getStartTimeout());
+		sb.append("\n\tJob timeout: " + getJobTimeout());
+		sb.append("\n\tVerify delays: " + getVerifyDelays());
+		sb.append("\n\tVerify threads: " + getVerifyThreads());
+		sb.append("\n\tBreaker threshold: " + getBreakerThreshold());
+		sb.append("\n\tBreaker backoff: " + getBreakerBackoff());
+		sb.append("\n\tBreaker max backoff: " + getBreakerMaxBackoff());
+		sb.append("\n\tRecovery threshold: " + getRecoveryThreshold());
+		sb.append("\n\tRecovery window: " + getRecoveryWindow());
+		sb.append("\n\tRecovery threads: " + getRecoveryThreads());
+		sb.append("\n\tRecovery probe interval: " + getRecoveryProbeInterval());
+		sb.append("\n\tDependency timeout: " + getDependencyTimeout());
+		return sb.toString();
+	}
+}
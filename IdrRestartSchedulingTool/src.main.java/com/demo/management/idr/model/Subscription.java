@@ -1,5 +1,7 @@
 package com.demo.management.idr.model;
 
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlType;
@@ -8,9 +10,11 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 
 //@XmlType(name = "subscription")
-@XmlType(name = "subscription", propOrder={"subscriptionName","sourceDataStore","cronPattern","loaderClass","enabled"})
+@XmlType(name = "subscription", propOrder={"subscriptionName","sourceDataStore","cronPattern","loaderClass","enabled","dependsOn"})
 public class Subscription {
 	
 	private StringProperty subscriptionId = new SimpleStringProperty();
@@ -19,6 +23,7 @@ public class Subscription {
 	private StringProperty cronPattern = new SimpleStringProperty();
 	private StringProperty loaderClass = new SimpleStringProperty();
 	private BooleanProperty enabled = new SimpleBooleanProperty();
+	private ObservableList<String> dependsOn = FXCollections.observableArrayList();
 	
 	public Subscription() {}
 	
@@ -115,6 +120,18 @@ public class Subscription {
 		return enabled;
 	}
 	
+	/**
+	 * @return ids of the subscriptions that must be mirroring before this one is restarted
+	 */
+	@XmlElement(name = "dependsOn")
+	public List<String> getDependsOn() {
+		return dependsOn;
+	}
+	
+	public ObservableList<String> dependsOnProperty() {
+		return dependsOn;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -124,6 +141,7 @@ public class Subscription {
 		sb.append("\n\tCron Pattern: " + getCronPattern());
 		sb.append("\n\tloader class: " + getLoaderClass());
 		sb.append("\n\tEnabled: " + isEnabled());
+		sb.append("\n\tDepends on: " + getDependsOn());
 		return sb.toString(); 
 	}
 
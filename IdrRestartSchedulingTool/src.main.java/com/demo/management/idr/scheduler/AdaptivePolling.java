@@ -0,0 +1,154 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import static org.quartz.SimpleScheduleBuilder.simpleSchedule;
+import static org.quartz.TriggerBuilder.newTrigger;
+
+import java.util.Date;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.JobListenerSupport;
+
+import com.demo.management.idr.util.MirroringOutcome;
+
+/**
+ * Adaptive polling of subscriptions.  Instead of a cron trigger, each subscription gets a
+ * repeating trigger that starts at the minimum interval.  Every time the subscription is
+ * found active the interval doubles, up to the maximum interval, and any other outcome 
+ * (stopped, restarted or failed check) brings it straight back to the minimum.  
+ * Stable subscriptions are then checked seldom, and unstable ones often.
+ *
+ * The bounds are kept in the trigger data, so a configuration reload with the same
+ * bounds does not reset the interval reached by a subscription.
+ *
+ * @author dlema
+ */
+class AdaptivePolling extends JobListenerSupport {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(AdaptivePolling.class.getName());
+
+	// trigger data keys
+	static final String MIN_INTERVAL = "adaptiveMinInterval";
+	static final String MAX_INTERVAL = "adaptiveMaxInterval";
+
+	@Override
+	public String getName() {
+		return "AdaptivePolling";
+	}
+
+	/**
+	 * builds the adaptive trigger for a job, at the minimum interval
+	 * @param job job to be fired
+	 * @param minInterval minimum interval, in milliseconds
+	 * @param maxInterval maximum interval, in milliseconds
+	 * @param startDelay delay before the first fire, in milliseconds
+	 * @return trigger using the job key as trigger key
+	 */
+	static SimpleTrigger newAdaptiveTrigger(JobDetail job, long minInterval, long maxInterval, long startDelay) {
+		JobDataMap data = new JobDataMap();
+		data.put(MIN_INTERVAL, minInterval);
+		data.put(MAX_INTERVAL, Math.max(minInterval, maxInterval));
+		return build(TriggerKey.triggerKey(job.getKey().getName(), job.getKey().getGroup()), job, data, 
+				minInterval, startDelay);
+	}
+
+	/**
+	 * @return true if the trigger was built by {@link #newAdaptiveTrigger}
+	 */
+	static boolean isAdaptive(Trigger trigger) {
+		return trigger instanceof SimpleTrigger && trigger.getJobDataMap().containsKey(MIN_INTERVAL);
+	}
+
+	/**
+	 * @return true if both triggers are adaptive and use the same bounds
+	 */
+	static boolean sameBounds(Trigger current, Trigger configured) {
+		return isAdaptive(current) && isAdaptive(configured)
+				&& current.getJobDataMap().getLong(MIN_INTERVAL) == configured.getJobDataMap().getLong(MIN_INTERVAL)
+				&& current.getJobDataMap().getLong(MAX_INTERVAL) == configured.getJobDataMap().getLong(MAX_INTERVAL);
+	}
+
+	private static SimpleTrigger build(TriggerKey key, JobDetail job, JobDataMap data, long interval, long startDelay) {
+		return newTrigger()
+				.withIdentity(key)
+				.forJob(job)
+				.usingJobData(data)
+				.startAt(new Date(System.currentTimeMillis() + startDelay))
+				.withSchedule(simpleSchedule()
+						.withIntervalInMilliseconds(interval)
+						.repeatForever()
+						.withMisfireHandlingInstructionNextWithRemainingCount())
+				.build();
+	}
+
+	/**
+	 * Adapts the interval of the job's adaptive trigger to the outcome of the check.  Fires
+	 * from other triggers (such as event monitoring) only shorten the interval.
+	 */
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		Object result = context.getResult();
+		if (!(result instanceof MirroringOutcome)) {
+			return;
+		}
+
+		JobDetail job = context.getJobDetail();
+		TriggerKey key = TriggerKey.triggerKey(job.getKey().getName(), job.getKey().getGroup());
+		try {
+			Trigger trigger = context.getScheduler().getTrigger(key);
+			if (!isAdaptive(trigger)) {
+				return;
+			}
+			SimpleTrigger current = (SimpleTrigger) trigger;
+			long minInterval = current.getJobDataMap().getLong(MIN_INTERVAL);
+			long maxInterval = current.getJobDataMap().getLong(MAX_INTERVAL);
+
+			long interval;
+			if (result == MirroringOutcome.ACTIVE) {
+				if (!key.equals(context.getTrigger().getKey())) {
+					return;
+				}
+				interval = Math.min(current.getRepeatInterval() * 2, maxInterval);
+			} else {
+				interval = minInterval;
+			}
+
+			if (interval != current.getRepeatInterval()) {
+				context.getScheduler().rescheduleJob(key, 
+						build(key, job, current.getJobDataMap(), interval, interval));
+				log.info("{} was {}. Next check in {} seconds", job.getKey(), result, interval / 1000);
+			}
+		} catch (SchedulerException e) {
+			log.error("Polling interval for {} could not be adapted", job.getKey(), e);
+		}
+	}
+}
@@ -0,0 +1,378 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import static org.quartz.TriggerBuilder.newTrigger;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.model.Settings;
+
+/**
+ * Limits how many jobs work on the same Access Server and on the same datastore at the
+ * same time.  Each Access Server and each datastore has its own fair permit pool (stripe),
+ * so a busy datastore only delays its own jobs.  A limit of 0 means no limit.
+ *
+ * Scheduled jobs take their permits with {@link #tryAcquire}, which does not wait: a job
+ * over the limit is deferred with {@link #retryLater} and its worker thread goes back to
+ * the scheduler, so jobs of other datastores are not held up behind it.  Mass recovery,
+ * which runs on its own threads, waits in arrival order with {@link #acquire}.
+ *
+ * Datastore permits are always taken before Access Server permits, so a job waiting for
+ * a busy datastore does not hold an Access Server slot.
+ *
+ * @author dlema
+ */
+public class ConcurrencyGovernor implements MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(ConcurrencyGovernor.class.getName());
+
+	// time a job over the limit waits before it is fired again (in milliseconds)
+	static final long RETRY_DELAY = 5000;
+
+	// name prefix for the one shot triggers of deferred jobs
+	static final String RETRY_TRIGGER_PREFIX = "retry.";
+
+	// permits of a stripe without limit
+	private static final int UNLIMITED = Integer.MAX_VALUE / 2;
+
+	private static final ConcurrencyGovernor instance = new ConcurrencyGovernor();
+
+	private final Map<String, Stripe> accessServers = new ConcurrentHashMap<>();
+	private final Map<String, Stripe> dataStores = new ConcurrentHashMap<>();
+
+	private volatile Settings settings = new Settings();
+
+	ConcurrencyGovernor() {
+	}
+
+	/**
+	 * @return the governor shared by all jobs
+	 */
+	public static ConcurrencyGovernor getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the limits of a new configuration.  Stripes already in use are resized;
+	 * jobs holding permits keep them.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public void configure(Settings settings) {
+		this.settings = settings;
+		for (Stripe stripe : accessServers.values()) {
+			stripe.resize(settings.getMaxConcurrentJobsPerAccessServer());
+		}
+		for (Stripe stripe : dataStores.values()) {
+			stripe.resize(settings.getMaxConcurrentJobs(stripe.name));
+		}
+		log.info("Concurrency limits: {} per Access Server, {} per datastore, datastore limits {}",
+				settings.getMaxConcurrentJobsPerAccessServer(), settings.getMaxConcurrentJobsPerDataStore(),
+				settings.getDataStoreLimits());
+	}
+
+	/**
+	 * Waits for a permit on the datastore and then on the Access Server.
+	 *
+	 * @param accessServer Access Server host name
+	 * @param dataStore datastore name
+	 * @return permit, to be closed when the job ends
+	 * @throws InterruptedException if interrupted while waiting, no permit is held then
+	 */
+	public Permit acquire(String accessServer, String dataStore) throws InterruptedException {
+		Stripe dataStoreStripe = stripe(dataStores, dataStore, s -> s.getMaxConcurrentJobs(dataStore));
+		Stripe accessServerStripe = stripe(accessServers, accessServer, 
+				Settings::getMaxConcurrentJobsPerAccessServer);
+
+		dataStoreStripe.acquire();
+		try {
+			accessServerStripe.acquire();
+		} catch (InterruptedException e) {
+			dataStoreStripe.release();
+			throw e;
+		}
+		return new Permit(dataStoreStripe, accessServerStripe);
+	}
+
+	/**
+	 * Takes a permit on the datastore and on the Access Server if both are free, without
+	 * waiting.
+	 *
+	 * @param accessServer Access Server host name
+	 * @param dataStore datastore name
+	 * @return permit, to be closed when the job ends; null if a limit has been reached, 
+	 * no permit is held then
+	 */
+	public Permit tryAcquire(String accessServer, String dataStore) {
+		Stripe dataStoreStripe = stripe(dataStores, dataStore, s -> s.getMaxConcurrentJobs(dataStore));
+		Stripe accessServerStripe = stripe(accessServers, accessServer, 
+				Settings::getMaxConcurrentJobsPerAccessServer);
+
+		if (!dataStoreStripe.tryAcquire()) {
+			dataStoreStripe.deferred.incrementAndGet();
+			return null;
+		}
+		if (!accessServerStripe.tryAcquire()) {
+			dataStoreStripe.release();
+			accessServerStripe.deferred.incrementAndGet();
+			return null;
+		}
+		return new Permit(dataStoreStripe, accessServerStripe);
+	}
+
+	/**
+	 * Fires a job again after {@link #RETRY_DELAY}, through a one shot trigger.  Nothing
+	 * is scheduled if a retry of the job is already pending; the job keeps its own trigger.
+	 *
+	 * @param context execution context of the job deferred
+	 * @throws SchedulerException if the retry could not be scheduled
+	 */
+	void retryLater(JobExecutionContext context) throws SchedulerException {
+		Scheduler scheduler = context.getScheduler();
+		JobKey jobKey = context.getJobDetail().getKey();
+		TriggerKey retryKey = TriggerKey.triggerKey(RETRY_TRIGGER_PREFIX + jobKey.getName(), jobKey.getGroup());
+		Trigger retry = newTrigger()
+				.withIdentity(retryKey)
+				.forJob(jobKey)
+				.startAt(new Date(System.currentTimeMillis() + RETRY_DELAY))
+				.build();
+		try {
+			if (retryKey.equals(context.getTrigger().getKey())) {
+				// the retry is firing, so it is still stored until the job ends
+				scheduler.rescheduleJob(retryKey, retry);
+			} else {
+				scheduler.scheduleJob(retry);
+			}
+			log.debug("{} is over its concurrency limits. Retried in {} ms", jobKey, RETRY_DELAY);
+		} catch (ObjectAlreadyExistsException e) {
+			log.debug("{} is over its concurrency limits. A retry is already pending", jobKey);
+		}
+	}
+
+	private Stripe stripe(Map<String, Stripe> stripes, String name, ToIntFunction<Settings> limit) {
+		String key = name != null ? name : "";
+		return stripes.computeIfAbsent(key, k -> new Stripe(k, limit.applyAsInt(settings)));
+	}
+
+	/**
+	 * @return number of jobs deferred since startup because a limit had been reached, 
+	 * by Access Server
+	 */
+	public Map<String, Long> getAccessServerDeferrals() {
+		return deferrals(accessServers);
+	}
+
+	/**
+	 * @return number of jobs deferred since startup because a limit had been reached, 
+	 * by datastore
+	 */
+	public Map<String, Long> getDataStoreDeferrals() {
+		return deferrals(dataStores);
+	}
+
+	private static Map<String, Long> deferrals(Map<String, Stripe> stripes) {
+		Map<String, Long> deferrals = new TreeMap<>();
+		for (Stripe stripe : stripes.values()) {
+			deferrals.put(stripe.name, stripe.deferred.get());
+		}
+		return deferrals;
+	}
+
+	/**
+	 * @return number of jobs waiting, by Access Server
+	 */
+	public Map<String, Integer> getAccessServerQueueDepths() {
+		return queueDepths(accessServers);
+	}
+
+	/**
+	 * @return number of jobs waiting, by datastore
+	 */
+	public Map<String, Integer> getDataStoreQueueDepths() {
+		return queueDepths(dataStores);
+	}
+
+	private static Map<String, Integer> queueDepths(Map<String, Stripe> stripes) {
+		Map<String, Integer> depths = new TreeMap<>();
+		for (Stripe stripe : stripes.values()) {
+			depths.put(stripe.name, stripe.waiting.get());
+		}
+		return depths;
+	}
+
+	/**
+	 * @return true if any job is waiting for a permit, or was deferred since the last call
+	 */
+	public boolean hasWaitingJobs() {
+		boolean waiting = false;
+		for (Stripe stripe : dataStores.values()) {
+			waiting |= stripe.hasWaitingJobs();
+		}
+		for (Stripe stripe : accessServers.values()) {
+			waiting |= stripe.hasWaitingJobs();
+		}
+		return waiting;
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		out.append("# HELP idr_concurrency_queue_depth Jobs waiting for a concurrency permit\n");
+		out.append("# TYPE idr_concurrency_queue_depth gauge\n");
+		for (Map.Entry<String, Integer> entry : getAccessServerQueueDepths().entrySet()) {
+			out.append("idr_concurrency_queue_depth{stripe=\"accessServer\",name=\"")
+					.append(MetricsSource.escape(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+		}
+		for (Map.Entry<String, Integer> entry : getDataStoreQueueDepths().entrySet()) {
+			out.append("idr_concurrency_queue_depth{stripe=\"dataStore\",name=\"")
+					.append(MetricsSource.escape(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+		}
+		out.append("# HELP idr_concurrency_deferred_total Jobs deferred because a concurrency limit had been reached\n");
+		out.append("# TYPE idr_concurrency_deferred_total counter\n");
+		for (Map.Entry<String, Long> entry : getAccessServerDeferrals().entrySet()) {
+			out.append("idr_concurrency_deferred_total{stripe=\"accessServer\",name=\"")
+					.append(MetricsSource.escape(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+		}
+		for (Map.Entry<String, Long> entry : getDataStoreDeferrals().entrySet()) {
+			out.append("idr_concurrency_deferred_total{stripe=\"dataStore\",name=\"")
+					.append(MetricsSource.escape(entry.getKey())).append("\"} ").append(entry.getValue()).append('\n');
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "waiting by Access Server: " + getAccessServerQueueDepths()
+				+ ", waiting by datastore: " + getDataStoreQueueDepths()
+				+ ", deferred by Access Server: " + getAccessServerDeferrals()
+				+ ", deferred by datastore: " + getDataStoreDeferrals();
+	}
+
+	/**
+	 * Permits held by a running job
+	 */
+	public static final class Permit implements AutoCloseable {
+
+		private final Stripe dataStore;
+		private final Stripe accessServer;
+		private boolean released = false;
+
+		private Permit(Stripe dataStore, Stripe accessServer) {
+			this.dataStore = dataStore;
+			this.accessServer = accessServer;
+		}
+
+		@Override
+		public void close() {
+			if (!released) {
+				released = true;
+				accessServer.release();
+				dataStore.release();
+			}
+		}
+	}
+
+	/**
+	 * Fair permit pool for one Access Server or datastore, which can be resized while in use.
+	 * A pool without limit has more permits than jobs can ever take.
+	 */
+	private static final class Stripe extends Semaphore {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final AtomicInteger waiting = new AtomicInteger();
+		private final AtomicLong deferred = new AtomicLong();
+		private long reported;
+		private int limit;
+
+		Stripe(String name, int limit) {
+			super(permits(limit), true);
+			this.name = name;
+			this.limit = permits(limit);
+		}
+
+		private static int permits(int limit) {
+			return limit > 0 ? limit : UNLIMITED;
+		}
+
+		@Override
+		public boolean tryAcquire() {
+			try {
+				// honours the queue of mass recovery, unlike tryAcquire()
+				return tryAcquire(0, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		synchronized boolean hasWaitingJobs() {
+			long current = deferred.get();
+			boolean deferredSinceReported = current != reported;
+			reported = current;
+			return waiting.get() > 0 || deferredSinceReported;
+		}
+
+		@Override
+		public void acquire() throws InterruptedException {
+			if (tryAcquire(0, TimeUnit.SECONDS)) {
+				return;
+			}
+			int depth = waiting.incrementAndGet();
+			log.debug("{} waits for a permit on {} ({} waiting)", Thread.currentThread().getName(), name, depth);
+			try {
+				super.acquire();
+			} finally {
+				waiting.decrementAndGet();
+			}
+		}
+
+		synchronized void resize(int newLimit) {
+			newLimit = permits(newLimit);
+			if (newLimit > limit) {
+				release(newLimit - limit);
+			} else if (newLimit < limit) {
+				reducePermits(limit - newLimit);
+			}
+			limit = newLimit;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Access Server connection data shared by all the jobs of a configuration load.  A single
+ * instance is put in every job data map, by reference.
+ *
+ * Jobs read it with {@link #from(Map)}.  The server, port, user and decrypted password are
+ * still written under their former flat keys as well, for custom loader classes that
+ * read them.
+ *
+ * @author dlema
+ */
+public final class ConnectionProfile {
+
+	// job data key
+	public static final String KEY = "connection";
+
+	// flat job data keys read by custom loader classes
+	public static final String ACCESS_SERVER_KEY = "accessServer";
+	public static final String PORT_KEY = "portNumber";
+	public static final String USER_ID_KEY = "userId";
+	public static final String PASSWORD_KEY = "password";
+
+	private final String accessServer;
+	private final String port;
+	private final String userId;
+	private final String password;
+
+	/**
+	 * @param accessServer Access Server host
+	 * @param port Access Server port
+	 * @param userId Access Server user
+	 * @param password decrypted password
+	 */
+	public ConnectionProfile(String accessServer, String port, String userId, String password) {
+		this.accessServer = accessServer;
+		this.port = port;
+		this.userId = userId;
+		this.password = password;
+	}
+
+	/**
+	 * @param dataMap job data map
+	 * @return the connection profile in the data map, null if there is none
+	 */
+	public static ConnectionProfile from(Map<String, Object> dataMap) {
+		return (ConnectionProfile) dataMap.get(KEY);
+	}
+
+	/**
+	 * Puts the profile in a job data map, together with its flat keys
+	 * @param dataMap job data map
+	 */
+	public void putInto(Map<String, Object> dataMap) {
+		dataMap.put(KEY, this);
+		dataMap.put(ACCESS_SERVER_KEY, accessServer);
+		dataMap.put(PORT_KEY, port);
+		dataMap.put(USER_ID_KEY, userId);
+		dataMap.put(PASSWORD_KEY, password);
+	}
+
+	public String getAccessServer() {
+		return accessServer;
+	}
+
+	public String getPort() {
+		return port;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	/**
+	 * @return the decrypted password
+	 */
+	public String getPassword() {
+		return password;
+	}
+
+	/**
+	 * Two profiles are equal when they connect the same way, so a reload that does not
+	 * change the connection data leaves the scheduled jobs untouched.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ConnectionProfile)) {
+			return false;
+		}
+		ConnectionProfile other = (ConnectionProfile) obj;
+		return Objects.equals(accessServer, other.accessServer)
+				&& Objects.equals(port, other.port)
+				&& Objects.equals(userId, other.userId)
+				&& Objects.equals(password, other.password);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(accessServer, port, userId, password);
+	}
+
+	/**
+	 * @return String representation for the profile, without the password
+	 */
+	@Override
+	public String toString() {
+		return userId + "@" + accessServer + ":" + port;
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Spreads the fire times of triggers sharing a cron pattern, so that subscriptions
+ * scheduled every minute do not all hit the Access Server in the same second.
+ *
+ * Each trigger is delayed by an offset taken from a hash of its key, so the offset
+ * of a subscription does not change between reloads or restarts.  The delay is applied
+ * by rewriting the seconds field and, for patterns repeating every few minutes, the
+ * first minute of the minutes field.  The window is reduced to the repeat period of the
+ * pattern, so the trigger still fires the same number of times.
+ *
+ * Patterns whose seconds or minutes field is not a single value, '*' or an 
+ * increment (a/b) are left unchanged.
+ *
+ * @author dlema
+ */
+final class CronStagger {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(CronStagger.class.getName());
+
+	private CronStagger() {
+	}
+
+	/**
+	 * @param cronPattern Quartz cron pattern
+	 * @param key identifies the trigger, usually the subscription id
+	 * @param window maximum delay, in seconds.  0 disables staggering
+	 * @return cron pattern delayed by an offset in [0, window), or the same pattern if it
+	 * cannot be staggered
+	 */
+	static String stagger(String cronPattern, String key, int window) {
+		if (window <= 1 || cronPattern == null) {
+			return cronPattern;
+		}
+
+		String[] fields = cronPattern.trim().split("\\s+");
+		if (fields.length < 6) {
+			return cronPattern;
+		}
+
+		Field seconds = Field.parse(fields[0], 60);
+		Field minutes = Field.parse(fields[1], 60);
+		if (seconds == null || minutes == null) {
+			log.debug("cron pattern {} cannot be staggered", cronPattern);
+			return cronPattern;
+		}
+
+		// repeat period of the pattern, in seconds, within the minute and within the hour
+		int period;
+		if (seconds.step < 60) {
+			period = seconds.step;
+		} else if (minutes.step < 60) {
+			period = minutes.step * 60;
+		} else {
+			period = 3600;
+		}
+
+		int offset = offset(key, Math.min(window, period));
+		if (offset == 0) {
+			return cronPattern;
+		}
+
+		if (seconds.step < 60) {
+			Field shifted = seconds.shift(offset);
+			if (shifted == null) {
+				return cronPattern;
+			}
+			fields[0] = shifted.toString();
+		} else {
+			int second = seconds.start + offset;
+			fields[0] = Integer.toString(second % 60);
+			if (second >= 60) {
+				Field shifted = minutes.shift(second / 60);
+				if (shifted == null) {
+					return cronPattern;
+				}
+				fields[1] = shifted.toString();
+			}
+		}
+		return String.join(" ", fields);
+	}
+
+	/**
+	 * @return offset for a key, in [0, window)
+	 */
+	static int offset(String key, int window) {
+		if (window <= 1 || key == null) {
+			return 0;
+		}
+		// String.hashCode is fixed by the language specification, so it is stable across runs.
+		// The multiplication spreads keys differing only in their last characters
+		int hash = key.hashCode() * 0x9E3779B9;
+		return Math.floorMod(hash ^ (hash >>> 16), window);
+	}
+
+	/**
+	 * Seconds or minutes field of a cron pattern, either a single value (step 60) or
+	 * an increment starting at a given value
+	 */
+	private static final class Field {
+
+		private final int start;
+		private final int step;
+
+		private Field(int start, int step) {
+			this.start = start;
+			this.step = step;
+		}
+
+		static Field parse(String field, int range) {
+			try {
+				if ("*".equals(field)) {
+					return new Field(0, 1);
+				}
+				int slash = field.indexOf('/');
+				if (slash < 0) {
+					return new Field(Integer.parseInt(field), range);
+				}
+				String start = field.substring(0, slash);
+				int step = Integer.parseInt(field.substring(slash + 1));
+				if (step <= 0 || step > range) {
+					return null;
+				}
+				return new Field("*".equals(start) ? 0 : Integer.parseInt(start), step);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * @return field delayed by an amount, null if it would move past the end of its range
+		 */
+		Field shift(int amount) {
+			if (step < 60 && start < step) {
+				// an increment keeps firing at every step, only its first value moves
+				return new Field((start + amount) % step, step);
+			}
+			return start + amount < 60 ? new Field(start + amount, step) : null;
+		}
+
+		@Override
+		public String toString() {
+			if (step >= 60) {
+				return Integer.toString(start);
+			}
+			return start + "/" + step;
+		}
+	}
+}
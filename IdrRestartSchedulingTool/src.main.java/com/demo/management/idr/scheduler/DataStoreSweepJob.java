@@ -0,0 +1,99 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import com.demo.management.idr.util.AccessServerUtil;
+import com.demo.management.idr.util.AccessServerWatchdog;
+
+/**
+ * Checks every subscription of a source datastore sharing the same cron pattern
+ * through one connection, restarting only the inactive ones.
+ *
+ * Subscriptions using this class as loader class are grouped by the scheduler service,
+ * so a single job is registered for each datastore and cron pattern.
+ *
+ * @author dlema
+ */
+public class DataStoreSweepJob implements Job {
+
+	private static final Logger logger = LogManager.getLogger(DataStoreSweepJob.class.getName());
+
+	/**
+	 * Wraps the datastore sweep as a job. Subscription starter is implemented in AccessServerUtil
+	 *
+	 * @param context execution context
+	 */
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+		logger.traceEntry("{}", context);
+
+		try {
+			Map<String, Object> dataMap = context.getMergedJobDataMap();
+
+			ConnectionProfile connection = ConnectionProfile.from(dataMap);
+			String accessServer = connection.getAccessServer();
+			String dataStore = (String)dataMap.get("dataStore");
+			@SuppressWarnings("unchecked")
+			List<String> subscriptions = (List<String>)dataMap.get("subscriptions");
+
+			AccessServerUtil accessServerUtil = new AccessServerUtil(
+					accessServer, connection.getPort(), connection.getUserId(), connection.getPassword());
+
+			if (dataStore != null && dataStore.length() > 0) {
+				logger.info("Checking subscriptions status... DataStore: {}, Subscriptions: {}",
+						dataStore, subscriptions.size());
+				// a job over the concurrency limits gives its worker back and is retried later
+				ConcurrencyGovernor governor = ConcurrencyGovernor.getInstance();
+				ConcurrencyGovernor.Permit permit = governor.tryAcquire(accessServer, dataStore);
+				if (permit == null) {
+					logger.info("Concurrency limit reached for datastore {}. Check deferred", dataStore);
+					governor.retryLater(context);
+				} else {
+					// the whole check must end within the job deadline
+					AccessServerWatchdog.Watch deadline = AccessServerWatchdog.getInstance().watchJob(dataStore);
+					try {
+						accessServerUtil.startMirroring(dataStore, subscriptions);
+						logger.info("Subscriptions status checked.");
+					} finally {
+						deadline.close();
+						permit.close();
+					}
+				}
+			} else {
+				logger.error("the datastore is null or blank");
+			}
+
+		} catch (Exception e) {
+			logger.error("Error executing task.", e);
+		}
+
+		logger.traceExit();
+	}
+}
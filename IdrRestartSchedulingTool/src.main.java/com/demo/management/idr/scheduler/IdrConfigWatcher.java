@@ -22,12 +22,16 @@ package com.demo.management.idr.scheduler;
 
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,6 +46,9 @@ public class IdrConfigWatcher implements Runnable {
 	// Logger definition
 	private static final Logger log = LogManager.getLogger(IdrConfigWatcher.class.getName());
 	
+	// a file written without pause is reloaded after this many quiet periods at most
+	private static final int MAX_QUIET_PERIODS = 10;
+	
 	// Reference to the scheduler service
 	private IdrSchedulerService idrSchedulerService = null;
 	
@@ -57,25 +64,54 @@ public class IdrConfigWatcher implements Runnable {
 		log.traceExit();
 	}
 
+	/**
+	 * Waits for changes on the configuration file and refreshes the scheduler.  Events
+	 * for other files in the same directory are ignored; bursts of events are collapsed 
+	 * into a single reload once the file stays quiet for the configured period, or at
+	 * most {@link #MAX_QUIET_PERIODS} periods after the first event, and the reload is
+	 * skipped when the file content did not actually change.
+	 */
 	public void run() {
 		log.traceEntry("Starting configuration file watcher");
 		
-		final Path path = Paths.get(idrSchedulerService.getConfigFile()); 
+		final Path path = Paths.get(idrSchedulerService.getConfigFile()).toAbsolutePath(); 
+		final Path fileName = path.getFileName();
 		log.trace("configFile: {}", path);
 		try (final WatchService watchService = FileSystems.getDefault().newWatchService()) {
-		    path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
+		    path.getParent().register(watchService, 
+		    		StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+		    String lastHash = hash(path);
 		    while (true) {
 		        final WatchKey wk = watchService.take();
-		        for (WatchEvent<?> event : wk.pollEvents()) {
-		        	log.trace("event: {}", event.context().toString());
-		            //we only register "ENTRY_MODIFY" so the context is always a Path.
-	            	log.info("Change detected for file {}. Scheduler will be refreshed", path);
-	            	idrSchedulerService.refresh();
+		        if (!isConfigFileEvent(wk, fileName)) {
+		        	continue;
+		        }
+		        
+		        // waits until the file stays quiet, so a multi step write causes one reload 
+		        long quietPeriod = idrSchedulerService.getConfiguration().getSettings().getConfigReloadQuietPeriod();
+		        if (quietPeriod > 0) {
+		        	long quiet = TimeUnit.MILLISECONDS.toNanos(quietPeriod);
+		        	long limit = System.nanoTime() + quiet * MAX_QUIET_PERIODS;
+		        	long quietUntil = System.nanoTime() + quiet;
+		        	long wait;
+		        	while ((wait = Math.min(quietUntil - System.nanoTime(), limit - System.nanoTime())) > 0) {
+		        		WatchKey next = watchService.poll(wait, TimeUnit.NANOSECONDS);
+		        		// writes to other files of the directory do not postpone the reload
+		        		if (next != null && isConfigFileEvent(next, fileName)) {
+		        			quietUntil = System.nanoTime() + quiet;
+		        		}
+		        	}
 		        }
-		        // reset the key
-		        boolean valid = wk.reset();
-		        if (!valid) {
-		            log.warn("Key has been unregistered");
+		        
+		        String currentHash = hash(path);
+		        if (currentHash == null) {
+		        	log.warn("Configuration file {} could not be read. Waiting for next change", path);
+		        } else if (currentHash.equals(lastHash)) {
+		        	log.info("Configuration file {} was written without changes. Scheduler is not refreshed", path);
+		        } else {
+		        	log.info("Change detected for file {}. Scheduler will be refreshed", path);
+		        	lastHash = currentHash;
+		        	idrSchedulerService.refresh();
 		        }
 		    }
 		} catch (InterruptedException e) {
@@ -87,4 +123,41 @@ public class IdrConfigWatcher implements Runnable {
 		log.traceExit();
 	}
 
+	/**
+	 * Consumes the events of a watch key and resets it.
+	 * 
+	 * @param wk signalled watch key
+	 * @param fileName name of the configuration file
+	 * @return true if any of the events refers to the configuration file
+	 */
+	private boolean isConfigFileEvent(WatchKey wk, Path fileName) {
+		boolean found = false;
+		for (WatchEvent<?> event : wk.pollEvents()) {
+			log.trace("event: {} {}", event.kind(), event.context());
+			// on overflow events may have been lost, so the file is assumed to be changed
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+				found = true;
+			}
+		}
+		// reset the key
+		boolean valid = wk.reset();
+		if (!valid) {
+			log.warn("Key has been unregistered");
+		}
+		return found;
+	}
+
+	/**
+	 * @param path configuration file
+	 * @return SHA-256 digest of the file content, null if it could not be read
+	 */
+	private String hash(Path path) {
+		try {
+			return DigestUtils.sha256Hex(Files.readAllBytes(path));
+		} catch (IOException e) {
+			log.debug("could not read {}", path, e);
+			return null;
+		}
+	}
+
 }
@@ -26,8 +26,21 @@ import static org.quartz.TriggerBuilder.newTrigger;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
-import java.util.Iterator;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,11 +51,26 @@ import org.quartz.JobDetail;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
+import org.quartz.Trigger;
 import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.simpl.SimpleThreadPool;
 
-import com.demo.management.idr.model.Configuration;
-import com.demo.management.idr.model.Subscription;
-import com.demo.management.idr.util.Encryptor;
+import com.demo.management.idr.journal.RestartJournal;
+import com.demo.management.idr.metrics.AccessServerMetrics;
+import com.demo.management.idr.metrics.MetricsHttpServer;
+import com.demo.management.idr.model.ServiceConfiguration;
+import com.demo.management.idr.model.ServiceConfigurationReader;
+import com.demo.management.idr.model.ServiceSubscription;
+import com.demo.management.idr.model.Settings;
+import com.demo.management.idr.util.AccessServerSessionPool;
+import com.demo.management.idr.util.AccessServerWatchdog;
+import com.demo.management.idr.util.CircuitBreakers;
+import com.demo.management.idr.util.CredentialService;
+import com.demo.management.idr.util.OutageDetector;
+import com.demo.management.idr.util.RestartVerifier;
+import com.demo.management.idr.util.SubscriptionDependencies;
+import com.demo.management.idr.util.SubscriptionStatusCache;
 
 /**
  * Starts a Quartz Scheduler, get IdrScheduler configuration, 
@@ -58,44 +86,83 @@ public class IdrSchedulerService implements Runnable {
 	
 	// Defines the wait time to check for stop signal (in milliseconds)
 	private static final int WAIT_INTERVAL = 60000;
+	
+	// Name prefix for datastore sweep jobs, followed by their cron pattern
+	private static final String SWEEP_JOB_PREFIX = "sweep ";
 
 	// Attributes
-	private Configuration configuration;
+	private ServiceConfiguration configuration;
 	private Scheduler scheduler;
+	private SubscriptionMonitor monitor;
+	private MetricsHttpServer metricsServer;
+	private SchedulerTelemetry telemetry;
+	private final MassRecovery recovery = new MassRecovery();
 	private boolean stopped = false; // controls if the service has received a stop signal
 
 	private String configFile = null;
 	
 	/**
-	 * Instantiate and starts an IdrScheduler, using a Quartz scheduler
+	 * Instantiate an IdrScheduler.  The Quartz scheduler is created when the configuration
+	 * file is first read, since its thread pool depends on the settings.
 	 */
 	public IdrSchedulerService() {
 		log.traceEntry();
+		log.traceExit();
+	}
+
+	/**
+	 * creates the Quartz scheduler with an in-memory job store and the thread pool 
+	 * selected in the settings
+	 * @param settings scheduler settings from the configuration file
+	 * @return a scheduler, not started
+	 * @throws SchedulerException 
+	 */
+	private static Scheduler createScheduler(Settings settings) throws SchedulerException {
+		log.traceEntry();
 		
-		try {
-			SchedulerFactory sf = new StdSchedulerFactory();
-		    scheduler = sf.getScheduler();
-		    
-		} catch (SchedulerException e) {
-			log.fatal("Failure getting scheduler: ", e);
-			System.exit(-1);
+		Properties properties = new Properties();
+		properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "IdrSchedulerService");
+		properties.setProperty(StdSchedulerFactory.PROP_SCHED_SKIP_UPDATE_CHECK, "true");
+		properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, RAMJobStore.class.getName());
+		
+		if (settings.isVirtualThreads()) {
+			properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, VirtualThreadPool.class.getName());
+			properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".maxConcurrency", 
+					Integer.toString(settings.getMaxConcurrentJobs()));
+			if (!VirtualThreadPool.isVirtualThreadSupported()) {
+				log.warn("Virtual threads were requested but need Java 21. Platform threads will be used");
+			}
+		} else {
+			properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, SimpleThreadPool.class.getName());
+			properties.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".threadCount", 
+					Integer.toString(settings.getMaxConcurrentJobs()));
 		}
-
-		log.traceExit();
+		log.info("Scheduler uses {} with {} concurrent jobs", 
+				properties.getProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS), settings.getMaxConcurrentJobs());
+		
+		SchedulerFactory sf = new StdSchedulerFactory(properties);
+		Scheduler scheduler = sf.getScheduler();
+		
+		// adapts the interval of adaptive triggers to the outcome of each check
+		scheduler.getListenerManager().addJobListener(new AdaptivePolling());
+		
+		return log.traceExit(scheduler);
 	}
 
 	/**
-	 * Refresh the setup of the scheduler by cleansing and reloading them.
+	 * Refresh the setup of the scheduler by reloading the configuration file and 
+	 * applying only the jobs and triggers that changed.  The current schedule is kept
+	 * if the configuration file cannot be read.
 	 */
 	public void refresh() {
 		log.traceEntry();
 		
 		try {
-			scheduler.clear();
-			
-			schedule();
+			if (!schedule()) {
+				log.error("Configuration file {} could not be loaded. Current schedule is kept", configFile);
+			}
 		} catch (Exception e) {
-			log.trace("Unmanaged error: {}", e);
+			log.error("Unmanaged error refreshing the scheduler", e);
 		}
 		
 		log.traceExit();
@@ -104,12 +171,14 @@ public class IdrSchedulerService implements Runnable {
 	/**
 	 * receive stop signal
 	 */
-	private void stop() {
+	public void stop() {
 		log.traceEntry();
 
 		stopped = true;
 		try {
-			scheduler.shutdown();
+			if (scheduler != null) {
+				scheduler.shutdown();
+			}
 		} catch (SchedulerException e) {
 			log.error("error turning down scheduler");
 		}
@@ -122,70 +191,427 @@ public class IdrSchedulerService implements Runnable {
 	}
 
 	/**
-	 * for each subscription in the configuration file, creates a job and a trigger
-	 * and adds them to Quartz scheduler
+	 * reads the configuration file one subscription at a time and, for each subscription, 
+	 * creates a job and a trigger.  Once the whole file has been read, they are added to 
+	 * Quartz scheduler, unless an identical pair is already scheduled, and scheduled jobs 
+	 * no longer present in the configuration are removed.
+	 * @return false if the configuration file could not be loaded.  The scheduler is not
+	 * changed in that case.
 	 * @throws SchedulerException 
 	 */
-	private void schedule() throws IOException, SchedulerException {
+	boolean schedule() throws IOException, SchedulerException {
 		log.traceEntry();
 		
-		// decriptor instance for decrypt passwords
-		Encryptor encryptor = new Encryptor();
+		ConfigurationLoader loader = new ConfigurationLoader();
+		if (ServiceConfigurationReader.read(new File(configFile), loader) == null) {
+			return log.traceExit(false);
+		}
+		
+		// the new settings take effect only once the whole file has been read
+		loader.apply();
+		
+		scheduleSweeps(loader.sweeps, loader.connection, loader.diff);
+		
+		loader.diff.commit();
+		log.info("Scheduler updated: {}", loader.diff);
+		
+		recovery.configure(configuration.getSettings(), loader.connection, loader.recoveryTargets);
+		
+		updateMonitor(loader);
+		
+		return log.traceExit(true);
+	}
+
+	/**
+	 * starts, updates or stops event driven monitoring, as selected in the settings
+	 * @param loader configuration just loaded
+	 */
+	private synchronized void updateMonitor(ConfigurationLoader loader) throws SchedulerException {
+		if (configuration.getSettings().isEventMonitoring()) {
+			if (monitor == null) {
+				monitor = new SubscriptionMonitor(scheduler);
+			}
+			monitor.update(configuration, loader.connection.getPassword(), loader.dataStores);
+		} else {
+			stopMonitor();
+		}
+	}
+
+	/**
+	 * registers the metrics MBean and starts the Prometheus endpoint when a metrics port
+	 * is configured.  The port is read only at startup.
+	 */
+	private void startMetrics() {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(AccessServerMetrics.OBJECT_NAME);
+			if (!mbeanServer.isRegistered(name)) {
+				mbeanServer.registerMBean(AccessServerMetrics.getInstance(), name);
+			}
+			name = new ObjectName(SchedulerTelemetry.OBJECT_NAME);
+			if (!mbeanServer.isRegistered(name)) {
+				mbeanServer.registerMBean(telemetry, name);
+			}
+		} catch (JMException e) {
+			log.warn("Metrics MBean could not be registered", e);
+		}
+		
+		int port = configuration.getSettings().getMetricsPort();
+		if (port > 0) {
+			metricsServer = new MetricsHttpServer();
+			metricsServer.addSource(AccessServerMetrics.getInstance());
+			metricsServer.addSource(ConcurrencyGovernor.getInstance());
+			metricsServer.addSource(AccessServerWatchdog.getInstance());
+			metricsServer.addSource(CircuitBreakers.getInstance());
+			metricsServer.addSource(RestartVerifier.getInstance());
+			metricsServer.addSource(recovery);
+			metricsServer.addSource(telemetry);
+			try {
+				metricsServer.start(port);
+			} catch (IOException e) {
+				log.error("Metrics endpoint could not be started on port {}", port, e);
+				metricsServer = null;
+			}
+		}
+	}
+
+	/**
+	 * stops event driven monitoring, if it is running
+	 */
+	private synchronized void stopMonitor() {
+		if (monitor != null) {
+			monitor.close();
+			monitor = null;
+		}
+	}
+
+	/**
+	 * Builds the jobs of the subscriptions while the configuration file is being read
+	 */
+	private class ConfigurationLoader implements ServiceConfigurationReader.Handler<SchedulerException> {
+		
+		private final CredentialService credentials = CredentialService.getInstance();
+		private ScheduleDiff diff;
+		
+		// configuration being read, applied only if the whole file is read
+		private ServiceConfiguration loaded;
 		
-		// iterates on the subscription list
-		Iterator<Subscription> iterator = configuration.getSubscriptions().iterator();
-		while (iterator.hasNext()) {
-			Subscription subscription = iterator.next();
+		// connection data shared by all the jobs of this load
+		private ConnectionProfile connection;
+		
+		// job classes by loader class name, null for the ones that could not be loaded
+		private final Map<String, Class<? extends Job>> loaderClasses = new HashMap<>();
+		
+		// subscriptions restarted by datastore sweeps, by datastore and cron pattern
+		private final Map<String, Map<String, List<String>>> sweeps = new LinkedHashMap<>();
+		
+		// source datastores with enabled subscriptions
+		private final Set<String> dataStores = new HashSet<>();
+		
+		// subscriptions checked by recovery passes
+		private final List<MassRecovery.Target> recoveryTargets = new ArrayList<>();
+		
+		// every configured subscription by subscriptionId, to resolve dependsOn declarations
+		private final Map<String, SubscriptionDependencies.Dependency> locations = new HashMap<>();
+		
+		// subscriptionIds of the disabled subscriptions
+		private final Set<String> disabled = new HashSet<>();
+		
+		// enabled subscriptions declaring dependencies
+		private final List<ServiceSubscription> dependents = new ArrayList<>();
+		
+		ConfigurationLoader() throws IOException {
+			// starts a new credential generation, so each password is decrypted once per load
+			credentials.newGeneration();
+		}
+		
+		@Override
+		public void configuration(ServiceConfiguration newConfiguration) throws SchedulerException {
+			if (scheduler == null) {
+				scheduler = createScheduler(newConfiguration.getSettings());
+				
+				// measures fire delay, misfires, run time and busy workers
+				telemetry = new SchedulerTelemetry(scheduler.getMetaData().getThreadPoolSize());
+				scheduler.getListenerManager().addTriggerListener(telemetry);
+				scheduler.getListenerManager().addJobListener(telemetry);
+			}
+			loaded = newConfiguration;
+			connection = new ConnectionProfile(newConfiguration.getAccessServer(), newConfiguration.getPort(),
+					newConfiguration.getUserId(), decryptPassword());
+			if (log.isTraceEnabled()) {
+				log.trace("access server: {}", loaded.getAccessServer());
+				log.trace("port number: {}", loaded.getPort());
+				log.trace("user id: {}", loaded.getUserId());
+				log.trace("contraseña sin descifrar es {}", loaded.getPassword());
+				log.trace("contraseña decifrada es {}" , connection.getPassword());
+			}
+			diff = new ScheduleDiff(scheduler);
+		}
+		
+		/**
+		 * Makes the configuration read the current one and configures the components 
+		 * sharing its settings.  Called once the whole file has been read, so an invalid 
+		 * file leaves the running setup untouched.
+		 */
+		void apply() {
+			configuration = loaded;
+			ConcurrencyGovernor.getInstance().configure(loaded.getSettings());
+			SubscriptionStatusCache.getInstance().setTtl(loaded.getSettings().getStatusCacheTtl());
+			RestartJournal.getInstance().configure(loaded.getSettings());
+			AccessServerWatchdog.getInstance().configure(loaded.getSettings());
+			CircuitBreakers.getInstance().configure(loaded.getSettings());
+			RestartVerifier.getInstance().configure(loaded.getSettings());
+			SubscriptionDependencies.getInstance().configure(dependencies());
+		}
+		
+		/**
+		 * Resolves the dependsOn declarations of the enabled subscriptions.  Dependencies on
+		 * unknown or disabled subscriptions, on the subscription itself and between 
+		 * subscriptions of the same cycle are ignored, since nothing would restart the 
+		 * subscription depended on and they would keep their dependents stopped for good.
+		 * @return dependencies by source datastore and subscription name
+		 */
+		private Map<String, Map<String, List<SubscriptionDependencies.Dependency>>> dependencies() {
+			Map<String, Integer> positions = new HashMap<>();
+			for (int i = 0; i < dependents.size(); i++) {
+				positions.put(dependents.get(i).getSubscriptionId(), i);
+			}
 			
+			// only subscriptions declaring dependencies can be part of a cycle
+			List<List<SubscriptionDependencies.Dependency>> resolved = new ArrayList<>();
+			int[][] graph = new int[dependents.size()][];
+			for (int i = 0; i < dependents.size(); i++) {
+				ServiceSubscription subscription = dependents.get(i);
+				List<SubscriptionDependencies.Dependency> found = new ArrayList<>();
+				int[] edges = new int[subscription.getDependsOn().size()];
+				int count = 0;
+				for (String dependsOn : new LinkedHashSet<>(subscription.getDependsOn())) {
+					SubscriptionDependencies.Dependency dependency = locations.get(dependsOn);
+					if (dependsOn.equals(subscription.getSubscriptionId())) {
+						log.warn("Subscription {} depends on itself. The dependency is ignored", 
+								subscription.getSubscriptionId());
+						continue;
+					}
+					if (dependency == null) {
+						log.warn("Subscription {} depends on {}, which is not configured. The dependency is ignored", 
+								subscription.getSubscriptionId(), dependsOn);
+						continue;
+					}
+					if (disabled.contains(dependsOn)) {
+						log.warn("Subscription {} depends on {}, whose restart is inactive. The dependency is ignored", 
+								subscription.getSubscriptionId(), dependsOn);
+						continue;
+					}
+					found.add(dependency);
+					Integer position = positions.get(dependsOn);
+					if (position != null) {
+						edges[count++] = position;
+					}
+				}
+				resolved.add(found);
+				graph[i] = Arrays.copyOf(edges, count);
+			}
+			
+			int[] component = new int[dependents.size()];
+			for (List<Integer> cycle : RestartPlan.components(graph, component)) {
+				if (cycle.size() > 1) {
+					List<String> ids = new ArrayList<>();
+					for (int member : cycle) {
+						ids.add(dependents.get(member).getSubscriptionId());
+					}
+					log.error("Subscriptions {} depend on each other in a cycle. "
+							+ "They are started regardless of each other", ids);
+				}
+			}
+			
+			Map<String, Map<String, List<SubscriptionDependencies.Dependency>>> dependencies = new HashMap<>();
+			for (int i = 0; i < dependents.size(); i++) {
+				ServiceSubscription subscription = dependents.get(i);
+				List<SubscriptionDependencies.Dependency> kept = new ArrayList<>();
+				for (SubscriptionDependencies.Dependency dependency : resolved.get(i)) {
+					Integer position = positions.get(dependency.getSubscriptionId());
+					if (position == null || component[position] != component[i]) {
+						kept.add(dependency);
+					}
+				}
+				if (!kept.isEmpty()) {
+					dependencies.computeIfAbsent(subscription.getSourceDataStore(), k -> new HashMap<>())
+							.put(subscription.getSubscriptionName(), kept);
+				}
+			}
+			return dependencies;
+		}
+		
+		@Override
+		public void subscription(ServiceSubscription subscription) throws SchedulerException {
+			locations.put(subscription.getSubscriptionId(), new SubscriptionDependencies.Dependency(
+					subscription.getSubscriptionId(), subscription.getSourceDataStore(), 
+					subscription.getSubscriptionName()));
 			if (!subscription.isEnabled()) {
 				log.info("Restart for subscription {} is inactive. It will be ignored", 
 						subscription.getSubscriptionId());
-				continue; 
+				disabled.add(subscription.getSubscriptionId());
+				return; 
+			}
+			dataStores.add(subscription.getSourceDataStore());
+			if (!subscription.getDependsOn().isEmpty()) {
+				dependents.add(subscription);
+			}
+			
+			if (DataStoreSweepJob.class.getName().equals(subscription.getLoaderClass())) {
+				log.info("Restart for subscription {} is active. It will be checked by datastore {} sweep", 
+						subscription.getSubscriptionId(), subscription.getSourceDataStore());
+				sweeps.computeIfAbsent(subscription.getSourceDataStore(), k -> new LinkedHashMap<>())
+						.computeIfAbsent(subscription.getCronPattern(), k -> new ArrayList<>())
+						.add(subscription.getSubscriptionName());
+				recoveryTargets.add(new MassRecovery.Target(subscription.getSubscriptionId(), 
+						subscription.getSourceDataStore(), subscription.getSubscriptionName(), 
+						subscription.getDependsOn()));
+				return;
 			}
 			
 			log.info("Restart for subscription {} is active. It will be scheduled", 
 					subscription.getSubscriptionId());
 			
+			Class<? extends Job> clase = loaderClass(subscription.getLoaderClass());
+			if (clase == null) {
+				log.debug("Scheduling for subscription {} is skipped", subscription.getSubscriptionId());
+				return;
+			}
+			if (SimpleSubscriptionStarter.class.equals(clase)) {
+				recoveryTargets.add(new MassRecovery.Target(subscription.getSubscriptionId(), 
+						subscription.getSourceDataStore(), subscription.getSubscriptionName(), 
+						subscription.getDependsOn()));
+			}
+			
 			// assembles a datamap with required data for restarts.
 			JobDataMap dataMap = new JobDataMap();
-			dataMap.put("accessServer", configuration.getAccessServer());
-			dataMap.put("portNumber", configuration.getPort());
-			dataMap.put("userId", configuration.getUserId());
-			dataMap.put("password", encryptor.decrypt(configuration.getPassword()));
+			connection.putInto(dataMap);
 			dataMap.put("dataStore", subscription.getSourceDataStore());
 			dataMap.put("subscription", subscription.getSubscriptionName());
-			dataMap.put("encryptor", encryptor);
 			if (log.isTraceEnabled()) {
-				log.trace("access server: {}", configuration.getAccessServer());
-				log.trace("port number: {}", configuration.getPort());
-				log.trace("user id: {}", configuration.getUserId());
-				log.trace("contraseña sin descifrar es {}", configuration.getPassword());
-				log.trace("contraseña decifrada es {}" , encryptor.decrypt(configuration.getPassword()));
 				log.trace("data store: {}", subscription.getSourceDataStore());
 				log.trace("subscription: {}", subscription.getSubscriptionName());
 			}
 			
+			JobDetail job = newJob(clase)
+					.withIdentity(subscription.getSubscriptionId(), subscription.getSourceDataStore())
+					.setJobData(dataMap)
+					.build();
+			
+			Trigger trigger;
+			Settings settings = loaded.getSettings();
+			if (settings.isAdaptivePolling() && SimpleSubscriptionStarter.class.equals(clase)) {
+				// only SimpleSubscriptionStarter reports the outcome adaptive polling depends on
+				long minInterval = settings.getAdaptivePollingMinInterval() * 1000L;
+				long startDelay = 1000L * CronStagger.offset(subscription.getSubscriptionId(), 
+						Math.min(settings.getStaggerWindow(), settings.getAdaptivePollingMinInterval()));
+				trigger = AdaptivePolling.newAdaptiveTrigger(job, minInterval, 
+						settings.getAdaptivePollingMaxInterval() * 1000L, startDelay);
+			} else {
+				trigger = newTrigger()
+						.withIdentity(subscription.getSubscriptionId(), subscription.getSourceDataStore())
+						.withSchedule(cronSchedule(stagger(subscription.getCronPattern(), 
+								subscription.getSubscriptionId(), settings)))
+						.forJob(job)
+						.build();
+			}
+
+			diff.apply(job, trigger);
+		}
+		
+		/**
+		 * Resolves a loader class once per load, however many subscriptions use it
+		 * @param name loader class name
+		 * @return the job class, null if it was not found or is not a Quartz job
+		 */
+		private Class<? extends Job> loaderClass(String name) {
+			if (loaderClasses.containsKey(name)) {
+				return loaderClasses.get(name);
+			}
+			Class<? extends Job> clase = null;
+			try {
+				if (name == null) {
+					throw new ClassNotFoundException("no loader class");
+				}
+				clase = Class.forName(name).asSubclass(Job.class);
+			} catch (ClassNotFoundException e) {
+				log.error("the provided class {} was not found.  Scheduling for its subscriptions will be skipped", 
+						name);
+			} catch (ClassCastException e) {
+				log.error("the provided class {} is not a Quartz job.  Scheduling for its subscriptions will be skipped", 
+						name);
+			}
+			loaderClasses.put(name, clase);
+			return clase;
+		}
+		
+		/**
+		 * @return the configured password, decrypted
+		 */
+		private String decryptPassword() throws SchedulerException {
 			try {
-			    @SuppressWarnings("unchecked")
-				Class<Job> clase = (Class<Job>) Class.forName(subscription.getLoaderClass());
+				return credentials.decrypt(loaded.getPassword());
+			} catch (IOException e) {
+				throw new SchedulerException("Password could not be decrypted", e);
+			}
+		}
+	}
 
-			    JobDetail job = newJob(clase)
-			    		.withIdentity(subscription.getSubscriptionId(), subscription.getSourceDataStore())
-			    		.setJobData(dataMap)
-			    		.build();
-			    
-			    CronTrigger trigger = newTrigger()
-			    		.withIdentity(subscription.getSubscriptionId(), subscription.getSourceDataStore())
-			    		.withSchedule(cronSchedule(subscription.getCronPattern()))
-			    		.build();
+	/**
+	 * delays a cron pattern by a stable offset within the configured stagger window, so
+	 * triggers sharing a pattern do not fire in the same second
+	 * @param cronPattern cron pattern from the configuration
+	 * @param key identifies the trigger
+	 * @param settings settings of the configuration being loaded
+	 * @return cron pattern to schedule
+	 */
+	private String stagger(String cronPattern, String key, Settings settings) {
+		String staggered = CronStagger.stagger(cronPattern, key, settings.getStaggerWindow());
+		if (!staggered.equals(cronPattern)) {
+			log.info("{} staggered: {} -> {}", key, cronPattern, staggered);
+		}
+		return staggered;
+	}
 
-			    Date ft = scheduler.scheduleJob(job, trigger);
+	/**
+	 * creates a single job and trigger for each datastore and cron pattern, checking all
+	 * the subscriptions grouped under them through one datastore connection
+	 * @param sweeps subscription names by datastore and cron pattern
+	 * @param connection connection data shared by the jobs
+	 * @param diff changes being applied to the scheduler
+	 * @throws SchedulerException 
+	 */
+	private void scheduleSweeps(Map<String, Map<String, List<String>>> sweeps, ConnectionProfile connection, 
+			ScheduleDiff diff) throws SchedulerException {
+		log.traceEntry();
+		
+		for (Map.Entry<String, Map<String, List<String>>> dataStoreSweeps : sweeps.entrySet()) {
+			String dataStore = dataStoreSweeps.getKey();
+			
+			for (Map.Entry<String, List<String>> sweep : dataStoreSweeps.getValue().entrySet()) {
+				String cronPattern = sweep.getKey();
 				
-			    log.info("{} has been scheduled to run at: {}  and repeat based on expression: {}",
-			    		job.getKey(), ft, trigger.getCronExpression());
-			} catch (ClassNotFoundException e) {
-				log.error("the provided class {} was not found.  Scheduling for subscription {} will be skipped", 
-						subscription.getLoaderClass(), subscription.getLoaderClass());
+				// assembles a datamap with required data for restarts.
+				JobDataMap dataMap = new JobDataMap();
+				connection.putInto(dataMap);
+				dataMap.put("dataStore", dataStore);
+				dataMap.put("subscriptions", sweep.getValue());
+				
+				JobDetail job = newJob(DataStoreSweepJob.class)
+						.withIdentity(SWEEP_JOB_PREFIX + cronPattern, dataStore)
+						.setJobData(dataMap)
+						.build();
+				
+				CronTrigger trigger = newTrigger()
+						.withIdentity(SWEEP_JOB_PREFIX + cronPattern, dataStore)
+						.withSchedule(cronSchedule(stagger(cronPattern, dataStore + " " + cronPattern, 
+								configuration.getSettings())))
+						.forJob(job)
+						.build();
+				
+				log.info("{} checks {} subscriptions", job.getKey(), sweep.getValue().size());
+				diff.apply(job, trigger);
 			}
 		}
 		
@@ -208,20 +634,21 @@ public class IdrSchedulerService implements Runnable {
 		log.info("==== Configuration file: {} ====", configFile);
 		Thread idrConfigWatcherThread = null;
 		
-		// creates IdrScheduler instance
-		configuration = Configuration.unmarshal(new File(configFile));
-		if (configuration == null) {
-			log.error("No such configuration file.  Program stops.");
-			return;
-		}
-		
-
 		try {
 			// creates a scheduler, loads configuration.
-			schedule();
+			if (!schedule()) {
+				log.error("No such configuration file.  Program stops.");
+				return;
+			}
 			
+		    // publishes metrics through JMX and, if a port is configured, over HTTP
+		    startMetrics();
+		    
 		    // starts the Quartz scheduler
 		    scheduler.start();
+		    
+		    // recovers every subscription at once after an outage
+		    recovery.start();
 
 		    // creates and starts thread for the watcher detecting configuration changes
 			IdrConfigWatcher idrConfigWatcher = new IdrConfigWatcher(this);
@@ -234,6 +661,50 @@ public class IdrSchedulerService implements Runnable {
 				synchronized(this) {
 					this.wait(WAIT_INTERVAL);
 				}
+				
+				// closes Access Server sessions nobody used during the last interval
+				AccessServerSessionPool sessionPool = AccessServerSessionPool.getInstance();
+				int evicted = sessionPool.evictIdle();
+				log.debug("Access Server session pool - {} (evicted now: {})", sessionPool, evicted);
+				
+				// forgets expired subscription status
+				SubscriptionStatusCache statusCache = SubscriptionStatusCache.getInstance();
+				statusCache.evictExpired();
+				log.debug("Subscription status cache - {}", statusCache);
+				
+				// reports scheduler saturation
+				log.debug("Scheduler telemetry - {}", telemetry);
+				telemetry.checkFireDelay(configuration.getSettings().getFireDelayWarningThreshold());
+				
+				// reports jobs queued or deferred by the concurrency limits, to help sizing them
+				ConcurrencyGovernor governor = ConcurrencyGovernor.getInstance();
+				if (governor.hasWaitingJobs()) {
+					log.info("Jobs waiting for or deferred by concurrency limits - {}", governor);
+				}
+				
+				// reports calls that missed their deadline
+				AccessServerWatchdog watchdog = AccessServerWatchdog.getInstance();
+				if (watchdog.getHungCalls() > 0) {
+					log.warn("Access Server calls still running after missing their deadline - {}", watchdog);
+				} else {
+					log.debug("Access Server watchdog - {}", watchdog);
+				}
+				
+				// reports Access Servers and datastores being skipped
+				CircuitBreakers breakers = CircuitBreakers.getInstance();
+				if (breakers.getOpenCount() > 0) {
+					log.info("Circuit breakers - {}", breakers);
+				}
+				
+				// reports an outage waiting for recovery
+				if (OutageDetector.getInstance().isOutage()) {
+					log.info("Mass recovery - {}", recovery);
+				} else {
+					log.debug("Mass recovery - {}", recovery);
+				}
+				
+				// reports how restarts ended
+				log.debug("Restart verification - {}", RestartVerifier.getInstance());
 			}
 		} catch (SchedulerException e) {
 			log.fatal("Error in scheduler operation: {}", e);
@@ -244,9 +715,22 @@ public class IdrSchedulerService implements Runnable {
 			log.fatal("Error processing configuration file: {}", e);
 		} finally {
 			try {
-				log.info("Stopping scheduler...");
-				this.scheduler.shutdown();
-				log.info("Scheduler stopped");
+				stopMonitor();
+				
+				if (metricsServer != null) {
+					metricsServer.stop();
+				}
+				
+				if (scheduler != null) {
+					log.info("Stopping scheduler...");
+					this.scheduler.shutdown();
+					log.info("Scheduler stopped");
+				}
+				
+				recovery.shutdown();
+				RestartVerifier.getInstance().shutdown();
+				AccessServerSessionPool.getInstance().closeAll();
+				RestartJournal.getInstance().close();
 				
 				if (idrConfigWatcherThread != null) {
 					log.info("Stopping configuration watcher");
@@ -287,7 +771,7 @@ public class IdrSchedulerService implements Runnable {
 	/**
 	 * @param configurationFile
 	 */
-	private void setConfigFile(String configurationFile) {
+	public void setConfigFile(String configurationFile) {
 		this.configFile = configurationFile;
 	}
 
@@ -297,4 +781,18 @@ public class IdrSchedulerService implements Runnable {
 	public String getConfigFile() {
 		return configFile;
 	}
+
+	/**
+	 * @return Quartz scheduler, null until the configuration is first loaded
+	 */
+	Scheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @return configuration currently applied to the scheduler
+	 */
+	public ServiceConfiguration getConfiguration() {
+		return configuration;
+	}
 }
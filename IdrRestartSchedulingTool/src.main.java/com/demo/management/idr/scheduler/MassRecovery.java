@@ -0,0 +1,464 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.datamirror.ea.api.publisher.Subscription;
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.model.Settings;
+import com.demo.management.idr.util.AccessServerUtil;
+import com.demo.management.idr.util.AccessServerWatchdog;
+import com.demo.management.idr.util.CircuitOpenException;
+import com.demo.management.idr.util.MirroringOutcome;
+import com.demo.management.idr.util.OutageDetector;
+import com.demo.management.idr.util.SubscriptionStatusCache;
+
+/**
+ * Recovers the whole fleet after an outage.  Without it, each subscription is restarted 
+ * only when its own trigger fires, so recovering from an Access Server or network outage
+ * takes as long as the longest interval.
+ *
+ * When the {@link OutageDetector} reports an outage, the datastores it affects are probed
+ * every recoveryProbeInterval, through their circuit breakers.  As soon as some of them
+ * can be reached, a single recovery pass checks every subscription of those datastores 
+ * scheduled by the built-in jobs, recoveryThreads at a time within the concurrency 
+ * limits, starting the ones that are not active.  Datastores still unreachable are 
+ * probed again.  The time from the first failed check to the end of the pass that
+ * recovers the last datastore is reported as the time to full recovery.
+ *
+ * Subscriptions are restarted level by level, following the {@link RestartPlan} built 
+ * from their dependsOn declarations.  Before a level starts, the subscriptions of earlier
+ * levels it depends on must be active; a subscription whose dependencies could not be
+ * recovered is skipped and left to its own trigger.
+ *
+ * Subscriptions with a custom loader class are left to their own triggers, since their
+ * restart procedure is unknown.
+ *
+ * @author dlema
+ */
+class MassRecovery implements MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(MassRecovery.class.getName());
+
+	// time between status reads while waiting for a dependency to become active (in milliseconds)
+	private static final long ACTIVE_POLL_INTERVAL = 500;
+
+	private static final MirroringOutcome[] PASS_OUTCOMES = {MirroringOutcome.ACTIVE, MirroringOutcome.STARTED, 
+			MirroringOutcome.NOT_FOUND, MirroringOutcome.FAILED, MirroringOutcome.DEFERRED};
+
+	/**
+	 * A subscription checked by recovery passes
+	 */
+	static final class Target {
+
+		private final String subscriptionId;
+		private final String dataStore;
+		private final String subscription;
+		private final List<String> dependsOn;
+
+		Target(String subscriptionId, String dataStore, String subscription, List<String> dependsOn) {
+			this.subscriptionId = subscriptionId;
+			this.dataStore = dataStore;
+			this.subscription = subscription;
+			this.dependsOn = dependsOn;
+		}
+
+		String getSubscriptionId() {
+			return subscriptionId;
+		}
+
+		String getDataStore() {
+			return dataStore;
+		}
+
+		String getSubscription() {
+			return subscription;
+		}
+
+		List<String> getDependsOn() {
+			return dependsOn;
+		}
+	}
+
+	private final OutageDetector detector = OutageDetector.getInstance();
+
+	private volatile Settings settings = new Settings();
+	private volatile ConnectionProfile connection;
+	private volatile RestartPlan plan = new RestartPlan(Collections.<Target>emptyList());
+
+	private ScheduledExecutorService prober;
+
+	// statistics
+	private final AtomicInteger passes = new AtomicInteger();
+	private volatile long lastRecoveryMillis = 0;
+	private volatile long lastPassMillis = 0;
+	private final AtomicLongArray lastOutcomes = new AtomicLongArray(MirroringOutcome.values().length);
+
+	/**
+	 * Takes the subscriptions of a configuration just loaded.  A pass already running
+	 * keeps the subscriptions it started with.
+	 *
+	 * @param settings settings from the configuration file
+	 * @param connection connection data of the configuration
+	 * @param targets subscriptions scheduled by the built-in jobs
+	 */
+	void configure(Settings settings, ConnectionProfile connection, List<Target> targets) {
+		this.settings = settings;
+		this.connection = connection;
+		this.plan = new RestartPlan(targets);
+		log.info("Recovery plan: {}", plan);
+		OutageDetector.getInstance().configure(settings);
+	}
+
+	/**
+	 * Starts probing for the end of outages
+	 */
+	synchronized void start() {
+		if (prober != null) {
+			return;
+		}
+		prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "MassRecovery");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// the interval is read at startup, like the metrics port
+		long interval = Math.max(settings.getRecoveryProbeInterval(), 100);
+		prober.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops probing, interrupting a pass that is running
+	 */
+	synchronized void shutdown() {
+		if (prober != null) {
+			prober.shutdownNow();
+			prober = null;
+		}
+	}
+
+	/**
+	 * Runs a recovery pass if there is an outage and some of its datastores can be reached again
+	 */
+	private void probe() {
+		try {
+			if (!detector.isOutage() || connection == null) {
+				return;
+			}
+			Set<String> down = detector.getOutageDataStores();
+			Set<String> reachable = reachable(down);
+			if (!reachable.isEmpty() || down.isEmpty()) {
+				recover(reachable, down);
+			}
+		} catch (RuntimeException e) {
+			// an exception would cancel the periodic probe
+			log.error("Unmanaged error in recovery", e);
+		}
+	}
+
+	/**
+	 * Probes the datastores of an outage
+	 *
+	 * @return the datastores that can be reached again, none if the Access Server cannot
+	 */
+	private Set<String> reachable(Set<String> dataStores) {
+		ConnectionProfile connection = this.connection;
+		AccessServerUtil accessServerUtil = new AccessServerUtil(connection.getAccessServer(), 
+				connection.getPort(), connection.getUserId(), connection.getPassword());
+		Set<String> reachable = new LinkedHashSet<>();
+		try {
+			accessServerUtil.openSession();
+			accessServerUtil.closeSession(true);
+		} catch (ApiException e) {
+			log.debug("Access Server still unreachable: {}", e.getMessage());
+			accessServerUtil.closeSession(false);
+			return reachable;
+		}
+		for (String dataStore : dataStores) {
+			try {
+				accessServerUtil.probeDatastore(dataStore);
+				reachable.add(dataStore);
+			} catch (CircuitOpenException e) {
+				log.debug("Datastore {} not probed yet. {}", dataStore, e.getMessage());
+			} catch (ApiException e) {
+				log.debug("Datastore {} still unreachable: {}", dataStore, e.getMessage());
+			}
+		}
+		return reachable;
+	}
+
+	/**
+	 * Checks every subscription of the datastores reachable again, recoveryThreads at a 
+	 * time, and leaves them out of the outage
+	 *
+	 * @param dataStores datastores whose subscriptions are checked
+	 * @param down datastores affected by the outage; the subscriptions of the ones still
+	 * unreachable are not checked and their dependents are skipped
+	 */
+	void recover(Set<String> dataStores, Set<String> down) {
+		RestartPlan pass = plan;
+		long start = System.currentTimeMillis();
+		long outageStart = detector.getOutageStart();
+		if (outageStart == 0) {
+			// not started by an outage
+			outageStart = start;
+		}
+		
+		// subscriptions not mirroring after their check, so their dependents are skipped
+		Set<String> unrecovered = new HashSet<>();
+		int targets = 0;
+		for (List<Target> level : pass.getLevels()) {
+			for (Target target : level) {
+				if (dataStores.contains(target.getDataStore())) {
+					targets++;
+				} else if (down.contains(target.getDataStore())) {
+					unrecovered.add(target.getSubscriptionId());
+				}
+			}
+		}
+		log.info("Datastores {} reachable again. Recovering {} of {}", dataStores, targets, pass);
+
+		detector.beginRecovery(dataStores);
+		int threads = Math.max(settings.getRecoveryThreads(), 1);
+		ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "MassRecovery-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long[] outcomes = new long[MirroringOutcome.values().length];
+		int skipped = 0;
+		boolean completed = false;
+		try {
+			for (List<Target> level : pass.getLevels()) {
+				Map<Target, Future<MirroringOutcome>> results = new LinkedHashMap<>();
+				for (Target target : level) {
+					if (!dataStores.contains(target.getDataStore())) {
+						continue;
+					}
+					if (Collections.disjoint(target.getDependsOn(), unrecovered)) {
+						results.put(target, workers.submit(() -> check(target)));
+					} else {
+						log.warn("Subscription {} skipped by recovery, a subscription it depends on was not recovered", 
+								target.getSubscriptionId());
+						unrecovered.add(target.getSubscriptionId());
+						skipped++;
+					}
+				}
+
+				// dependencies started in this level must be active before the next level
+				Map<Target, Future<Boolean>> starting = new LinkedHashMap<>();
+				for (Map.Entry<Target, Future<MirroringOutcome>> result : results.entrySet()) {
+					Target target = result.getKey();
+					MirroringOutcome outcome = outcome(result.getValue());
+					if (outcome == null) {
+						outcome = MirroringOutcome.FAILED;
+					}
+					outcomes[outcome.ordinal()]++;
+					if (outcome == MirroringOutcome.FAILED || outcome == MirroringOutcome.NOT_FOUND 
+							|| outcome == MirroringOutcome.DEFERRED) {
+						unrecovered.add(target.getSubscriptionId());
+					} else if (outcome == MirroringOutcome.STARTED && pass.isRequired(target.getSubscriptionId())) {
+						starting.put(target, workers.submit(() -> awaitActive(target)));
+					}
+				}
+				for (Map.Entry<Target, Future<Boolean>> active : starting.entrySet()) {
+					if (!Boolean.TRUE.equals(outcome(active.getValue()))) {
+						log.warn("Subscription {} did not become active within {} ms. Its dependents are skipped", 
+								active.getKey().getSubscriptionId(), settings.getDependencyTimeout());
+						unrecovered.add(active.getKey().getSubscriptionId());
+					}
+				}
+			}
+			completed = true;
+		} catch (InterruptedException e) {
+			log.info("Recovery interrupted. Datastores {} are left in the outage", dataStores);
+			Thread.currentThread().interrupt();
+			return;
+		} finally {
+			workers.shutdownNow();
+			if (!completed) {
+				detector.abortRecovery(dataStores);
+			}
+		}
+		boolean ended = detector.endRecovery(dataStores);
+
+		long end = System.currentTimeMillis();
+		lastPassMillis = end - start;
+		if (ended) {
+			lastRecoveryMillis = end - outageStart;
+		}
+		outcomes[MirroringOutcome.FAILED.ordinal()] += skipped;
+		for (MirroringOutcome outcome : PASS_OUTCOMES) {
+			lastOutcomes.set(outcome.ordinal(), outcomes[outcome.ordinal()]);
+		}
+		passes.incrementAndGet();
+
+		long failed = outcomes[MirroringOutcome.FAILED.ordinal()] + outcomes[MirroringOutcome.NOT_FOUND.ordinal()] 
+				+ outcomes[MirroringOutcome.DEFERRED.ordinal()];
+		if (failed == 0 && ended) {
+			log.info("Full recovery {} ms after the outage started. Pass of {} ms: {} active, {} started", 
+					end - outageStart, lastPassMillis, outcomes[MirroringOutcome.ACTIVE.ordinal()], 
+					outcomes[MirroringOutcome.STARTED.ordinal()]);
+		} else if (failed == 0) {
+			log.info("Datastores {} recovered {} ms after the outage started. Pass of {} ms: {} active, {} started. "
+					+ "Datastores {} are still unreachable", dataStores, end - outageStart, lastPassMillis, 
+					outcomes[MirroringOutcome.ACTIVE.ordinal()], outcomes[MirroringOutcome.STARTED.ordinal()], 
+					detector.getOutageDataStores());
+		} else {
+			log.warn("Recovery pass ended {} ms after the outage started. Pass of {} ms: {} active, {} started, "
+					+ "{} failed, not found, deferred or skipped.  These are left to their own triggers", end - outageStart, 
+					lastPassMillis, outcomes[MirroringOutcome.ACTIVE.ordinal()], 
+					outcomes[MirroringOutcome.STARTED.ordinal()], failed);
+		}
+	}
+
+	/**
+	 * @return result of a task of the pass, null if it failed
+	 */
+	private static <T> T outcome(Future<T> result) throws InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			log.error("Error recovering subscription", e.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Waits for a subscription started by the pass to become active, reading its status
+	 * every {@link #ACTIVE_POLL_INTERVAL} milliseconds up to the dependency timeout
+	 *
+	 * @return true if it became active
+	 */
+	private boolean awaitActive(Target target) {
+		ConnectionProfile connection = this.connection;
+		AccessServerUtil accessServerUtil = new AccessServerUtil(connection.getAccessServer(), 
+				connection.getPort(), connection.getUserId(), connection.getPassword());
+		long deadline = System.currentTimeMillis() + settings.getDependencyTimeout();
+		try {
+			while (true) {
+				SubscriptionStatusCache.getInstance().invalidate(target.getDataStore(), target.getSubscription());
+				try {
+					Byte status = accessServerUtil.readStatus(target.getDataStore(), target.getSubscription());
+					if (status != null && status == Subscription.LIVE_STATUS_ACTIVE) {
+						return true;
+					}
+				} catch (ApiException e) {
+					log.debug("Status of subscription {} could not be read: {}", target.getSubscriptionId(), 
+							e.getMessage());
+				}
+				long wait = Math.min(ACTIVE_POLL_INTERVAL, deadline - System.currentTimeMillis());
+				if (wait <= 0) {
+					return false;
+				}
+				Thread.sleep(wait);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Checks a subscription as {@link SimpleSubscriptionStarter} does, reading its status 
+	 * again instead of trusting the status cache
+	 */
+	private MirroringOutcome check(Target target) {
+		ConnectionProfile connection = this.connection;
+		AccessServerUtil accessServerUtil = new AccessServerUtil(connection.getAccessServer(), 
+				connection.getPort(), connection.getUserId(), connection.getPassword());
+		SubscriptionStatusCache.getInstance().invalidate(target.getDataStore(), target.getSubscription());
+		try (AccessServerWatchdog.Watch deadline = AccessServerWatchdog.getInstance().watchJob(target.getDataStore())) {
+			try {
+				ConcurrencyGovernor.Permit permit = 
+						ConcurrencyGovernor.getInstance().acquire(connection.getAccessServer(), target.getDataStore());
+				try {
+					return accessServerUtil.startMirroring(target.getDataStore(), target.getSubscription());
+				} finally {
+					permit.close();
+				}
+			} catch (InterruptedException e) {
+				if (!deadline.isExpired()) {
+					// the pass is being stopped
+					Thread.currentThread().interrupt();
+				}
+				return MirroringOutcome.FAILED;
+			}
+		} catch (ApiException e) {
+			log.error("Error recovering subscription {}", target.getSubscriptionId(), e);
+			return MirroringOutcome.FAILED;
+		}
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		out.append("# HELP idr_recovery_outage 1 while an outage is being recovered\n");
+		out.append("# TYPE idr_recovery_outage gauge\n");
+		out.append("idr_recovery_outage ").append(detector.isOutage() ? 1 : 0).append('\n');
+		out.append("# HELP idr_recovery_passes_total Recovery passes run\n");
+		out.append("# TYPE idr_recovery_passes_total counter\n");
+		out.append("idr_recovery_passes_total ").append(passes.get()).append('\n');
+		out.append("# HELP idr_recovery_last_seconds Time from the start of the last outage to the end of its recovery\n");
+		out.append("# TYPE idr_recovery_last_seconds gauge\n");
+		out.append("idr_recovery_last_seconds ").append(lastRecoveryMillis / 1000.0).append('\n');
+		out.append("# HELP idr_recovery_last_pass_seconds Run time of the last recovery pass\n");
+		out.append("# TYPE idr_recovery_last_pass_seconds gauge\n");
+		out.append("idr_recovery_last_pass_seconds ").append(lastPassMillis / 1000.0).append('\n');
+		out.append("# HELP idr_recovery_last_subscriptions Subscriptions checked by the last recovery pass\n");
+		out.append("# TYPE idr_recovery_last_subscriptions gauge\n");
+		for (MirroringOutcome outcome : PASS_OUTCOMES) {
+			out.append("idr_recovery_last_subscriptions{outcome=\"").append(outcome.name().toLowerCase())
+					.append("\"} ").append(lastOutcomes.get(outcome.ordinal())).append('\n');
+		}
+	}
+
+	@Override
+	public String toString() {
+		return detector + ", passes: " + passes.get() + ", last recovery: " + lastRecoveryMillis 
+				+ " ms (pass " + lastPassMillis + " ms), plan: " + plan;
+	}
+}
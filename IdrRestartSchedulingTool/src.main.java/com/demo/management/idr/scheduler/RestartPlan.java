@@ -0,0 +1,236 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Order in which a recovery pass restarts subscriptions, built from their dependsOn
+ * declarations.  Level 0 holds the subscriptions without dependencies, and each later 
+ * level the ones whose dependencies are all in earlier levels.  Subscriptions of the same
+ * level do not depend on each other, so they are restarted in parallel, and the number 
+ * of levels is the length of the longest chain.
+ *
+ * Dependencies on subscriptions that recovery passes do not restart (disabled, unknown or
+ * with a custom loader class) are ignored.  Subscriptions depending on each other in a 
+ * cycle are found as the strongly connected components of the dependency graph, with 
+ * Tarjan's algorithm, and share a level after the subscriptions the cycle depends on, so
+ * they are still restarted.  The subscriptions depending on a cycle follow it as usual.
+ *
+ * @author dlema
+ */
+final class RestartPlan {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(RestartPlan.class.getName());
+
+	private final List<List<MassRecovery.Target>> levels;
+
+	// subscriptions other subscriptions depend on
+	private final Set<String> required = new HashSet<>();
+
+	/**
+	 * @param targets subscriptions to restart
+	 */
+	RestartPlan(List<MassRecovery.Target> targets) {
+		int size = targets.size();
+		Map<String, Integer> positions = new HashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			positions.put(targets.get(i).getSubscriptionId(), i);
+		}
+
+		// positions of the dependencies of each subscription
+		int[][] dependencies = new int[size][];
+		for (int i = 0; i < size; i++) {
+			MassRecovery.Target target = targets.get(i);
+			Set<String> declared = new HashSet<>(target.getDependsOn());
+			int[] found = new int[declared.size()];
+			int count = 0;
+			for (String dependency : declared) {
+				Integer position = positions.get(dependency);
+				if (position == null) {
+					log.warn("Subscription {} depends on {}, which is not restarted by recovery passes. "
+							+ "The dependency is ignored", target.getSubscriptionId(), dependency);
+					continue;
+				}
+				if (position == i) {
+					log.warn("Subscription {} depends on itself. The dependency is ignored", 
+							target.getSubscriptionId());
+					continue;
+				}
+				required.add(dependency);
+				found[count++] = position;
+			}
+			dependencies[i] = Arrays.copyOf(found, count);
+		}
+
+		// Tarjan numbers each component after every component it depends on
+		int[] component = new int[size];
+		List<List<Integer>> members = components(dependencies, component);
+
+		int[] depth = new int[members.size()];
+		for (int c = 0; c < members.size(); c++) {
+			List<Integer> cycle = members.get(c);
+			for (int member : cycle) {
+				for (int dependency : dependencies[member]) {
+					if (component[dependency] != c) {
+						depth[c] = Math.max(depth[c], depth[component[dependency]] + 1);
+					}
+				}
+			}
+			if (cycle.size() > 1) {
+				List<String> ids = new ArrayList<>();
+				for (int member : cycle) {
+					ids.add(targets.get(member).getSubscriptionId());
+				}
+				log.error("Subscriptions {} depend on each other in a cycle. They are restarted together, "
+						+ "in any order, in level {}", ids, depth[c]);
+			}
+		}
+
+		List<List<MassRecovery.Target>> result = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			int level = depth[component[i]];
+			while (result.size() <= level) {
+				result.add(new ArrayList<>());
+			}
+			result.get(level).add(targets.get(i));
+		}
+		for (int level = 0; level < result.size(); level++) {
+			result.set(level, Collections.unmodifiableList(result.get(level)));
+		}
+		this.levels = Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Finds the strongly connected components of a dependency graph with Tarjan's 
+	 * algorithm, iterating instead of recursing so long chains cannot overflow the stack.
+	 *
+	 * @param dependencies positions of the dependencies of each node
+	 * @param component receives the component of each node
+	 * @return nodes of each component; a component comes after the ones it depends on
+	 */
+	static List<List<Integer>> components(int[][] dependencies, int[] component) {
+		int size = dependencies.length;
+		int[] index = new int[size];
+		int[] low = new int[size];
+		int[] next = new int[size];
+		boolean[] onStack = new boolean[size];
+		Arrays.fill(index, -1);
+		Deque<Integer> stack = new ArrayDeque<>();
+		Deque<Integer> path = new ArrayDeque<>();
+		List<List<Integer>> members = new ArrayList<>();
+		int counter = 0;
+
+		for (int root = 0; root < size; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			index[root] = low[root] = counter++;
+			stack.push(root);
+			onStack[root] = true;
+			path.push(root);
+			while (!path.isEmpty()) {
+				int node = path.peek();
+				if (next[node] < dependencies[node].length) {
+					int dependency = dependencies[node][next[node]++];
+					if (index[dependency] < 0) {
+						index[dependency] = low[dependency] = counter++;
+						stack.push(dependency);
+						onStack[dependency] = true;
+						path.push(dependency);
+					} else if (onStack[dependency]) {
+						low[node] = Math.min(low[node], index[dependency]);
+					}
+					continue;
+				}
+				path.pop();
+				if (!path.isEmpty()) {
+					low[path.peek()] = Math.min(low[path.peek()], low[node]);
+				}
+				if (low[node] == index[node]) {
+					List<Integer> nodes = new ArrayList<>();
+					int member;
+					do {
+						member = stack.pop();
+						onStack[member] = false;
+						component[member] = members.size();
+						nodes.add(member);
+					} while (member != node);
+					members.add(nodes);
+				}
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * @return subscriptions by level, in restart order
+	 */
+	List<List<MassRecovery.Target>> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * @param subscriptionId subscription id
+	 * @return true if other subscriptions depend on it
+	 */
+	boolean isRequired(String subscriptionId) {
+		return required.contains(subscriptionId);
+	}
+
+	/**
+	 * @return number of subscriptions in the plan
+	 */
+	int size() {
+		int size = 0;
+		for (List<MassRecovery.Target> level : levels) {
+			size += level.size();
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(size()).append(" subscriptions in ").append(levels.size()).append(" levels");
+		if (levels.size() > 1) {
+			sb.append(" (");
+			for (int i = 0; i < levels.size(); i++) {
+				sb.append(i > 0 ? ", " : "").append(levels.get(i).size());
+			}
+			sb.append(')');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.impl.matchers.GroupMatcher;
+
+/**
+ * Brings the jobs registered in a Quartz scheduler in line with the configuration,
+ * touching only the entries that changed.  Jobs and triggers are matched by key
+ * (subscriptionId and sourceDataStore); new ones are added, changed ones replaced or
+ * rescheduled, and the ones no longer configured are removed at the end.
+ *
+ * Nothing reaches the scheduler while the configuration is being read: jobs are only
+ * registered through {@link #apply} and the changes are made by {@link #commit}, so a
+ * configuration file that cannot be read leaves the current schedule untouched.
+ *
+ * New jobs are not registered one by one but collected and handed to Quartz in batches
+ * through {@link Scheduler#scheduleJobs}, which stores each batch under a single lock of
+ * the job store.  On the first load the scheduler is empty, so jobs are not even looked
+ * up before being added.
+ *
+ * @author dlema
+ */
+class ScheduleDiff {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(ScheduleDiff.class.getName());
+
+	// new jobs handed to Quartz in a single call; bounded so the job store lock is not held for too long
+	static final int BATCH_SIZE = 1000;
+
+	private final Scheduler scheduler;
+	
+	// jobs and triggers registered from the configuration, jobs in reading order
+	private final Map<JobKey, JobDetail> configuredJobs = new LinkedHashMap<>();
+	private final Map<JobKey, Trigger> configuredTriggers = new HashMap<>();
+
+	// true while the scheduler had no jobs when this diff was created
+	private final boolean empty;
+
+	// new jobs and triggers waiting to be scheduled
+	private final Map<JobDetail, Set<? extends Trigger>> pending = new LinkedHashMap<>();
+
+	private int added = 0;
+	private int replaced = 0;
+	private int rescheduled = 0;
+	private int unchanged = 0;
+	private int removed = 0;
+
+	/**
+	 * @param scheduler scheduler to be updated
+	 * @throws SchedulerException
+	 */
+	ScheduleDiff(Scheduler scheduler) throws SchedulerException {
+		this.scheduler = scheduler;
+		this.empty = scheduler.getJobGroupNames().isEmpty();
+	}
+
+	/**
+	 * Registers a job and its trigger read from the configuration.  The scheduler is 
+	 * not touched until {@link #commit} is called.
+	 *
+	 * @param job job built from the configuration
+	 * @param trigger trigger for the job, using the same key
+	 */
+	void apply(JobDetail job, Trigger trigger) {
+		// the last definition of a repeated key wins, as when it was scheduled one by one
+		configuredJobs.remove(job.getKey());
+		configuredJobs.put(job.getKey(), job);
+		configuredTriggers.put(job.getKey(), trigger);
+	}
+
+	/**
+	 * Brings the scheduler in line with the jobs registered through {@link #apply}: 
+	 * schedules the new ones, replaces or reschedules the changed ones and removes every 
+	 * scheduled job that was not registered since this diff was created.
+	 *
+	 * @throws SchedulerException
+	 */
+	void commit() throws SchedulerException {
+		for (JobDetail job : configuredJobs.values()) {
+			update(job, configuredTriggers.get(job.getKey()));
+		}
+		flush();
+		
+		for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.anyJobGroup())) {
+			if (!configuredJobs.containsKey(jobKey)) {
+				scheduler.deleteJob(jobKey);
+				removed++;
+				log.info("{} is no longer configured and has been removed", jobKey);
+			}
+		}
+	}
+
+	/**
+	 * Schedules a job and its trigger, unless an identical pair is already scheduled.
+	 * New jobs are only queued; they reach the scheduler when {@link #flush} is called
+	 * or a full batch has been queued.
+	 *
+	 * @param job job built from the configuration
+	 * @param trigger trigger for the job, using the same key
+	 * @throws SchedulerException
+	 */
+	private void update(JobDetail job, Trigger trigger) throws SchedulerException {
+		JobDetail currentJob = empty ? null : scheduler.getJobDetail(job.getKey());
+		if (currentJob == null) {
+			pending.put(job, Collections.singleton(trigger));
+			if (pending.size() >= BATCH_SIZE) {
+				flush();
+			}
+			return;
+		}
+
+		boolean changed = false;
+		if (!currentJob.getJobClass().equals(job.getJobClass())
+				|| !currentJob.getJobDataMap().getWrappedMap().equals(job.getJobDataMap().getWrappedMap())) {
+			scheduler.addJob(job, true, true);
+			replaced++;
+			changed = true;
+			log.info("{} job data has changed and has been replaced", job.getKey());
+		}
+
+		Trigger currentTrigger = scheduler.getTrigger(trigger.getKey());
+		if (currentTrigger == null) {
+			Date ft = scheduler.scheduleJob(trigger);
+			rescheduled++;
+			changed = true;
+			if (log.isInfoEnabled()) {
+				log.info("{} has been scheduled to run at: {}  and repeat based on {}",
+						job.getKey(), ft, describe(trigger));
+			}
+		} else if (!sameSchedule(currentTrigger, trigger)) {
+			Date ft = scheduler.rescheduleJob(currentTrigger.getKey(), trigger);
+			rescheduled++;
+			changed = true;
+			if (log.isInfoEnabled()) {
+				log.info("{} has been rescheduled to run at: {}  and repeat based on {}",
+						job.getKey(), ft, describe(trigger));
+			}
+		}
+
+		if (!changed) {
+			unchanged++;
+			log.debug("{} has not changed", job.getKey());
+		}
+	}
+
+	/**
+	 * Schedules the new jobs queued by {@link #update}.
+	 *
+	 * @throws SchedulerException
+	 */
+	private void flush() throws SchedulerException {
+		if (pending.isEmpty()) {
+			return;
+		}
+		scheduler.scheduleJobs(pending, false);
+		added += pending.size();
+		if (log.isInfoEnabled()) {
+			for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : pending.entrySet()) {
+				for (Trigger trigger : entry.getValue()) {
+					// Quartz computes the first fire time on the trigger it was given
+					log.info("{} has been scheduled to run at: {}  and repeat based on {}",
+							entry.getKey().getKey(), trigger.getNextFireTime(), describe(trigger));
+				}
+			}
+		}
+		pending.clear();
+	}
+
+	/**
+	 * @return String representation for the applied changes
+	 */
+	@Override
+	public String toString() {
+		return added + " added, " + removed + " removed, " + rescheduled + " rescheduled, "
+				+ replaced + " replaced, " + unchanged + " unchanged";
+	}
+
+	private static boolean sameSchedule(Trigger current, Trigger configured) {
+		if (current instanceof CronTrigger && configured instanceof CronTrigger) {
+			CronTrigger currentCron = (CronTrigger) current;
+			CronTrigger configuredCron = (CronTrigger) configured;
+			return currentCron.getCronExpression().equals(configuredCron.getCronExpression())
+					&& currentCron.getTimeZone().equals(configuredCron.getTimeZone());
+		}
+		if (AdaptivePolling.isAdaptive(current) || AdaptivePolling.isAdaptive(configured)) {
+			// the interval of an adaptive trigger changes while it runs; only its bounds are configured
+			return AdaptivePolling.sameBounds(current, configured);
+		}
+		if (current instanceof SimpleTrigger && configured instanceof SimpleTrigger) {
+			SimpleTrigger currentSimple = (SimpleTrigger) current;
+			SimpleTrigger configuredSimple = (SimpleTrigger) configured;
+			return currentSimple.getRepeatInterval() == configuredSimple.getRepeatInterval()
+					&& currentSimple.getRepeatCount() == configuredSimple.getRepeatCount();
+		}
+		return false;
+	}
+
+	private static String describe(Trigger trigger) {
+		if (trigger instanceof CronTrigger) {
+			return "expression: " + ((CronTrigger) trigger).getCronExpression();
+		}
+		if (trigger instanceof SimpleTrigger) {
+			return "interval: " + ((SimpleTrigger) trigger).getRepeatInterval() / 1000 + " seconds";
+		}
+		return "trigger: " + trigger;
+	}
+}
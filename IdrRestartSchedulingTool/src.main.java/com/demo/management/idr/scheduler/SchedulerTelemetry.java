@@ -0,0 +1,213 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.metrics.RollingPercentiles;
+
+/**
+ * Measures how saturated the scheduler is: the delay between the scheduled and the 
+ * actual fire time of each trigger, misfires, job run time and busy workers.  A growing 
+ * fire delay with all workers busy means checks wait for a free thread; a long run time 
+ * with a short fire delay means the Access Server is slow.
+ *
+ * Percentiles are computed over the last minutes, and a warning is logged when the 
+ * fire delay p99 crosses the configured threshold.
+ *
+ * @author dlema
+ */
+public class SchedulerTelemetry implements TriggerListener, JobListener, SchedulerTelemetryMXBean, MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(SchedulerTelemetry.class.getName());
+
+	// JMX object name
+	public static final String OBJECT_NAME = "com.demo.management.idr:type=SchedulerTelemetry";
+
+	// samples kept for the percentiles
+	private static final int SAMPLES = 4096;
+	private static final long WINDOW = 5 * 60 * 1000;
+
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+	private final RollingPercentiles fireDelay = new RollingPercentiles(SAMPLES, WINDOW);
+	private final RollingPercentiles runTime = new RollingPercentiles(SAMPLES, WINDOW);
+	private final AtomicLong fired = new AtomicLong();
+	private final AtomicLong misfires = new AtomicLong();
+	private final AtomicInteger busyWorkers = new AtomicInteger();
+	private final int poolSize;
+
+	/**
+	 * @param poolSize number of worker threads, or concurrency cap, of the scheduler
+	 */
+	SchedulerTelemetry(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	@Override
+	public String getName() {
+		return "SchedulerTelemetry";
+	}
+
+	@Override
+	public void triggerFired(Trigger trigger, JobExecutionContext context) {
+		fired.incrementAndGet();
+		if (context.getScheduledFireTime() != null) {
+			fireDelay.record(Math.max(0, context.getFireTime().getTime() - context.getScheduledFireTime().getTime()));
+		}
+	}
+
+	@Override
+	public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+		return false;
+	}
+
+	@Override
+	public void triggerMisfired(Trigger trigger) {
+		misfires.incrementAndGet();
+		log.debug("{} misfired", trigger.getKey());
+	}
+
+	@Override
+	public void triggerComplete(Trigger trigger, JobExecutionContext context,
+			CompletedExecutionInstruction triggerInstructionCode) {
+	}
+
+	@Override
+	public void jobToBeExecuted(JobExecutionContext context) {
+		busyWorkers.incrementAndGet();
+	}
+
+	@Override
+	public void jobExecutionVetoed(JobExecutionContext context) {
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		busyWorkers.decrementAndGet();
+		runTime.record(context.getJobRunTime());
+	}
+
+	/**
+	 * Logs a warning if the fire delay p99 is over a threshold
+	 *
+	 * @param threshold fire delay threshold, in milliseconds.  0 disables the warning
+	 */
+	void checkFireDelay(long threshold) {
+		if (threshold <= 0) {
+			return;
+		}
+		long p99 = getFireDelayP99();
+		if (p99 > threshold) {
+			log.warn("Fire delay p99 is {} ms, over {} ms. Busy workers {} of {}, misfires {}. "
+					+ "Checks are waiting for free workers", p99, threshold, getBusyWorkers(), poolSize, 
+					getMisfireCount());
+		}
+	}
+
+	@Override
+	public long getFireDelayP50() {
+		return fireDelay.getPercentiles(0.5)[0];
+	}
+
+	@Override
+	public long getFireDelayP99() {
+		return fireDelay.getPercentiles(0.99)[0];
+	}
+
+	@Override
+	public long getRunTimeP50() {
+		return runTime.getPercentiles(0.5)[0];
+	}
+
+	@Override
+	public long getRunTimeP99() {
+		return runTime.getPercentiles(0.99)[0];
+	}
+
+	@Override
+	public long getFiredCount() {
+		return fired.get();
+	}
+
+	@Override
+	public long getMisfireCount() {
+		return misfires.get();
+	}
+
+	@Override
+	public int getBusyWorkers() {
+		return busyWorkers.get();
+	}
+
+	@Override
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		summary(out, "idr_scheduler_fire_delay_seconds", "Delay between scheduled and actual fire time", fireDelay);
+		summary(out, "idr_scheduler_job_run_seconds", "Job run time", runTime);
+
+		out.append("# HELP idr_scheduler_fired_total Triggers fired\n");
+		out.append("# TYPE idr_scheduler_fired_total counter\n");
+		out.append("idr_scheduler_fired_total ").append(getFiredCount()).append('\n');
+		out.append("# HELP idr_scheduler_misfires_total Triggers that missed their fire time\n");
+		out.append("# TYPE idr_scheduler_misfires_total counter\n");
+		out.append("idr_scheduler_misfires_total ").append(getMisfireCount()).append('\n');
+		out.append("# HELP idr_scheduler_workers Busy and idle scheduler workers\n");
+		out.append("# TYPE idr_scheduler_workers gauge\n");
+		int busy = getBusyWorkers();
+		out.append("idr_scheduler_workers{state=\"busy\"} ").append(busy).append('\n');
+		out.append("idr_scheduler_workers{state=\"idle\"} ").append(Math.max(poolSize - busy, 0)).append('\n');
+	}
+
+	private static void summary(StringBuilder out, String name, String help, RollingPercentiles samples) {
+		long[] values = samples.getPercentiles(QUANTILES);
+		out.append("# HELP ").append(name).append(' ').append(help).append(", last 5 minutes\n");
+		out.append("# TYPE ").append(name).append(" summary\n");
+		for (int i = 0; i < QUANTILES.length; i++) {
+			out.append(name).append("{quantile=\"").append(QUANTILES[i]).append("\"} ")
+					.append(values[i] / 1000.0).append('\n');
+		}
+		out.append(name).append("_count ").append(samples.getCount()).append('\n');
+	}
+
+	@Override
+	public String toString() {
+		return "fire delay p50/p99: " + getFireDelayP50() + "/" + getFireDelayP99() + " ms, run time p50/p99: " 
+				+ getRunTimeP50() + "/" + getRunTimeP99() + " ms, fired: " + getFiredCount() + ", misfires: " 
+				+ getMisfireCount() + ", busy workers: " + getBusyWorkers() + " of " + poolSize;
+	}
+}
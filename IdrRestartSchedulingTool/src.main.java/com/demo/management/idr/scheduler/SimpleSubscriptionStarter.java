@@ -29,6 +29,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
 import com.demo.management.idr.util.AccessServerUtil;
+import com.demo.management.idr.util.AccessServerWatchdog;
 
 /**
  * Class implementing a basic procedure for restarting subscriptions
@@ -37,7 +38,7 @@ import com.demo.management.idr.util.AccessServerUtil;
  */
 public class SimpleSubscriptionStarter implements Job {
 
-	private Logger logger = LogManager.getLogger(SimpleSubscriptionStarter.class.getName());
+	private static final Logger logger = LogManager.getLogger(SimpleSubscriptionStarter.class.getName());
 
 	/**
 	 * Wraps the subscription starter as a job. Subscription starter is implemented in AccessServerUtil
@@ -46,26 +47,40 @@ public class SimpleSubscriptionStarter implements Job {
 	 */
 	@Override
 	public void execute(JobExecutionContext context) throws JobExecutionException {
-		logger.traceEntry(context.toString());
+		logger.traceEntry("{}", context);
 
 		try {
 			Map<String, Object> dataMap = context.getMergedJobDataMap();
 			
-			String accessServer = (String)dataMap.get("accessServer");
-			String portNumber = (String)dataMap.get("portNumber");
-			String userId =	(String)dataMap.get("userId");
-			String password = (String)dataMap.get("password");
+			ConnectionProfile connection = ConnectionProfile.from(dataMap);
+			String accessServer = connection.getAccessServer();
 			String dataStore = (String)dataMap.get("dataStore");
 			String subscription = (String)dataMap.get("subscription");
 			
 			AccessServerUtil accessServerUtil = new AccessServerUtil(
-					accessServer, portNumber, userId, password);
+					accessServer, connection.getPort(), connection.getUserId(), connection.getPassword());
 
 			if (dataStore != null && dataStore.length() > 0) {
 				logger.info("Checking subscription status... DataStore: {}, Subscription: {}", 
 						dataStore, subscription);
-				accessServerUtil.startMirroring(dataStore, subscription);
-				logger.info("Subscription status checked.");
+				// a job over the concurrency limits gives its worker back and is retried later
+				ConcurrencyGovernor governor = ConcurrencyGovernor.getInstance();
+				ConcurrencyGovernor.Permit permit = governor.tryAcquire(accessServer, dataStore);
+				if (permit == null) {
+					logger.info("Concurrency limit reached for datastore {}. Check deferred", dataStore);
+					governor.retryLater(context);
+				} else {
+					// the whole check must end within the job deadline
+					AccessServerWatchdog.Watch deadline = AccessServerWatchdog.getInstance().watchJob(dataStore);
+					try {
+						// the outcome is used by adaptive polling
+						context.setResult(accessServerUtil.startMirroring(dataStore, subscription));
+						logger.info("Subscription status checked.");
+					} finally {
+						deadline.close();
+						permit.close();
+					}
+				}
 			} else {
 				logger.error("the datastore is null or blank");
 			}
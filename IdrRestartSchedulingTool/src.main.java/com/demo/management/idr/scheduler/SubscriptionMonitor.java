@@ -0,0 +1,355 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import com.datamirror.ea.api.ApiException;
+import com.datamirror.ea.api.DataNotFoundException;
+import com.datamirror.ea.api.monitor.AbstractMonitorAgentMessageHandler;
+import com.datamirror.ea.api.publisher.Subscription;
+import com.demo.management.idr.model.ServiceConfiguration;
+import com.demo.management.idr.model.Settings;
+import com.demo.management.idr.util.AccessServerUtil;
+
+/**
+ * Event driven monitoring of subscriptions.  A CDC monitor listener is kept registered
+ * for every source datastore in the configuration.  Each status update it pushes makes
+ * the monitor read the status of the scheduled subscriptions of that datastore, through
+ * one connection, and fire right away the jobs of those that changed to a non active 
+ * state, instead of waiting for their next cron time.  The statuses read are left in the
+ * status cache, so the jobs fired do not read them again.
+ * 
+ * Status updates arriving close together are coalesced into a single check.  The cron 
+ * triggers are kept as a safety net for lost events and for datastores whose listener
+ * could not be registered, which are retried periodically.
+ *
+ * @author dlema
+ */
+class SubscriptionMonitor {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(SubscriptionMonitor.class.getName());
+
+	private final Scheduler scheduler;
+	private final ScheduledExecutorService executor;
+	private final Map<String, DataStoreMonitor> monitors = new ConcurrentHashMap<>();
+
+	private volatile Settings settings = new Settings();
+	private String accessServer;
+	private String port;
+	private String userId;
+	private String password;
+
+	private final AtomicLong events = new AtomicLong();
+	private final AtomicLong checks = new AtomicLong();
+
+	SubscriptionMonitor(Scheduler scheduler) {
+		this.scheduler = scheduler;
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "SubscriptionMonitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Registers listeners for new datastores and removes those of datastores no longer
+	 * configured.  All listeners are registered again if the connection data changed.
+	 *
+	 * @param configuration configuration just loaded
+	 * @param password decrypted password
+	 * @param dataStores source datastores with enabled subscriptions
+	 */
+	synchronized void update(ServiceConfiguration configuration, String password, Set<String> dataStores) {
+		log.traceEntry();
+		settings = configuration.getSettings();
+
+		if (!Objects.equals(accessServer, configuration.getAccessServer()) 
+				|| !Objects.equals(port, configuration.getPort())
+				|| !Objects.equals(userId, configuration.getUserId())
+				|| !Objects.equals(this.password, password)) {
+			stopAll();
+			accessServer = configuration.getAccessServer();
+			port = configuration.getPort();
+			userId = configuration.getUserId();
+			this.password = password;
+		}
+
+		for (String dataStore : new HashSet<>(monitors.keySet())) {
+			if (!dataStores.contains(dataStore)) {
+				monitors.remove(dataStore).close();
+			}
+		}
+		for (String dataStore : dataStores) {
+			if (!monitors.containsKey(dataStore)) {
+				DataStoreMonitor monitor = new DataStoreMonitor(dataStore);
+				monitors.put(dataStore, monitor);
+				executor.execute(monitor::connect);
+			}
+		}
+		log.info("Event monitoring enabled for {} datastores", monitors.size());
+		log.traceExit();
+	}
+
+	/**
+	 * Stops all listeners
+	 */
+	synchronized void close() {
+		stopAll();
+		executor.shutdownNow();
+		log.info("Event monitoring stopped. {}", this);
+	}
+
+	private void stopAll() {
+		for (DataStoreMonitor monitor : monitors.values()) {
+			monitor.close();
+		}
+		monitors.clear();
+	}
+
+	/**
+	 * Reads the status of the subscriptions scheduled for a datastore and fires now the
+	 * jobs of those that changed to a non active state since the previous check.  Jobs
+	 * whose subscriptions are unknown, or whose status could not be read, are fired too.
+	 * @param dataStore source datastore
+	 * @param lastStatuses status of each subscription at the previous check, updated
+	 */
+	private void checkDataStore(String dataStore, Map<String, Byte> lastStatuses) {
+		try {
+			Map<JobKey, List<String>> jobs = new LinkedHashMap<>();
+			Set<String> subscriptions = new LinkedHashSet<>();
+			for (JobKey jobKey : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(dataStore))) {
+				JobDetail job = scheduler.getJobDetail(jobKey);
+				if (job != null) {
+					List<String> names = subscriptionsOf(job.getJobDataMap());
+					jobs.put(jobKey, names);
+					subscriptions.addAll(names);
+				}
+			}
+
+			Map<String, Byte> statuses = new AccessServerUtil(accessServer, port, userId, password)
+					.readStatuses(dataStore, subscriptions);
+			Set<String> changed = new HashSet<>();
+			for (String subscription : subscriptions) {
+				if (!statuses.containsKey(subscription)) {
+					// not read, so it is checked by its job
+					lastStatuses.remove(subscription);
+					changed.add(subscription);
+					continue;
+				}
+				Byte status = statuses.get(subscription);
+				Byte previous = status != null ? lastStatuses.put(subscription, status) 
+						: lastStatuses.remove(subscription);
+				if (status != null && status.byteValue() != Subscription.LIVE_STATUS_ACTIVE 
+						&& !status.equals(previous)) {
+					changed.add(subscription);
+				}
+			}
+			lastStatuses.keySet().retainAll(subscriptions);
+
+			int fired = 0;
+			for (Map.Entry<JobKey, List<String>> job : jobs.entrySet()) {
+				if (job.getValue().isEmpty() || !Collections.disjoint(job.getValue(), changed)) {
+					scheduler.triggerJob(job.getKey());
+					fired++;
+				}
+			}
+			log.info("Status change on datastore {}. {} of {} subscriptions not active since the last check, {} jobs fired", 
+					dataStore, changed.size(), subscriptions.size(), fired);
+			checks.incrementAndGet();
+		} catch (SchedulerException e) {
+			log.error("Jobs for datastore {} could not be fired", dataStore, e);
+		} catch (ApiException e) {
+			log.warn("Status change on datastore {} could not be checked: {}. Cron checks continue", 
+					dataStore, e.getMessage());
+		}
+	}
+
+	/**
+	 * @param dataMap job data map
+	 * @return names of the subscriptions a job checks: a single subscription or, for a 
+	 * datastore sweep, its list of subscriptions
+	 */
+	private static List<String> subscriptionsOf(JobDataMap dataMap) {
+		Object subscriptions = dataMap.get("subscriptions");
+		if (subscriptions instanceof Collection) {
+			List<String> names = new ArrayList<>();
+			for (Object name : (Collection<?>) subscriptions) {
+				names.add(String.valueOf(name));
+			}
+			return names;
+		}
+		String subscription = dataMap.getString("subscription");
+		return subscription != null ? Collections.singletonList(subscription) : Collections.<String>emptyList();
+	}
+
+	@Override
+	public String toString() {
+		int listening = 0;
+		for (DataStoreMonitor monitor : monitors.values()) {
+			if (monitor.connection != null) {
+				listening++;
+			}
+		}
+		return "datastores: " + monitors.size() + ", listening: " + listening 
+				+ ", status events: " + events.get() + ", checks fired: " + checks.get();
+	}
+
+	/**
+	 * Monitor listener for one datastore
+	 */
+	private class DataStoreMonitor extends AbstractMonitorAgentMessageHandler {
+
+		private final String dataStore;
+		private final AtomicBoolean checkPending = new AtomicBoolean();
+		// only used by the executor thread
+		private final Map<String, Byte> lastStatuses = new HashMap<>();
+		private volatile AccessServerUtil connection;
+		private volatile boolean closed = false;
+
+		DataStoreMonitor(String dataStore) {
+			this.dataStore = dataStore;
+		}
+
+		/**
+		 * registers the listener, retrying later if it fails
+		 */
+		void connect() {
+			if (closed) {
+				return;
+			}
+			AccessServerUtil util = new AccessServerUtil(accessServer, port, userId, password);
+			try {
+				util.startMonitor(dataStore, this);
+				connection = util;
+				if (closed) {
+					close();
+				}
+			} catch (ApiException e) {
+				long retry = settings.getMonitorReconnectInterval();
+				log.warn("Monitor listener for datastore {} could not be registered: {}. Retrying in {} ms", 
+						dataStore, e.getMessage(), retry);
+				reconnectLater(retry);
+			}
+		}
+
+		void close() {
+			closed = true;
+			AccessServerUtil current = connection;
+			connection = null;
+			if (current != null) {
+				current.stopMonitor();
+			}
+		}
+
+		private void reconnectLater(long delay) {
+			if (!closed && !executor.isShutdown()) {
+				executor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * schedules a check of the datastore, unless one is already pending
+		 */
+		private void requestCheck() {
+			if (closed || executor.isShutdown()) {
+				return;
+			}
+			if (checkPending.compareAndSet(false, true)) {
+				executor.schedule(() -> {
+					checkPending.set(false);
+					checkDataStore(dataStore, lastStatuses);
+				}, settings.getMonitorCoalescePeriod(), TimeUnit.MILLISECONDS);
+			}
+		}
+
+		@Override
+		protected void updateStatisticsData(String name, int type, int id, int count, byte[] data) {
+			// statistics are not requested
+		}
+
+		@Override
+		public void handleStatusUpdate(DataInputStream input) throws IOException, DataNotFoundException {
+			super.handleStatusUpdate(input);
+			events.incrementAndGet();
+			log.debug("status update received for datastore {}", dataStore);
+			requestCheck();
+		}
+
+		@Override
+		public void handleMonitorConnectionLost(String message) {
+			super.handleMonitorConnectionLost(message);
+			connectionLost(message);
+		}
+
+		@Override
+		public void handleMonitoringConnectionReset(String host, int port, String message) {
+			super.handleMonitoringConnectionReset(host, port, message);
+			connectionLost(message);
+		}
+
+		/**
+		 * events may have been missed, so the datastore is checked and the listener
+		 * registered again
+		 */
+		private void connectionLost(String message) {
+			if (closed) {
+				return;
+			}
+			log.warn("Monitor connection for datastore {} lost: {}. Cron checks continue", dataStore, message);
+			AccessServerUtil current = connection;
+			connection = null;
+			if (current != null) {
+				executor.execute(current::stopMonitor);
+			}
+			requestCheck();
+			reconnectLater(settings.getMonitorReconnectInterval());
+		}
+	}
+}
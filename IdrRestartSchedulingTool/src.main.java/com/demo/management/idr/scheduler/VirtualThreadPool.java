@@ -0,0 +1,220 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+/**
+ * Quartz thread pool that runs every job on its own virtual thread, so jobs blocked on
+ * Access Server calls do not hold a platform thread.  The number of jobs running at the
+ * same time is still limited by maxConcurrency; once it is reached, Quartz waits for a
+ * job to end before firing the next trigger.
+ *
+ * Virtual threads are looked up by reflection, so the class compiles with Java 8.  On a
+ * runtime without them (before Java 21) it falls back to one platform thread per job.
+ *
+ * Configured through Quartz properties:
+ * <pre>
+ * org.quartz.threadPool.class = com.demo.management.idr.scheduler.VirtualThreadPool
+ * org.quartz.threadPool.maxConcurrency = 10
+ * </pre>
+ *
+ * @author dlema
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(VirtualThreadPool.class.getName());
+
+	// Default number of jobs running at the same time
+	public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+	private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+	private String instanceName = "QuartzScheduler";
+
+	private Semaphore permits;
+	private ThreadFactory threadFactory;
+	private final AtomicInteger running = new AtomicInteger();
+	private volatile boolean shutdown = false;
+
+	@Override
+	public void initialize() throws SchedulerConfigException {
+		if (maxConcurrency <= 0) {
+			throw new SchedulerConfigException("maxConcurrency must be > 0");
+		}
+		permits = new Semaphore(maxConcurrency);
+		threadFactory = virtualThreadFactory(instanceName + "_Worker-");
+		if (threadFactory == null) {
+			log.warn("Virtual threads are not available in this Java runtime. Jobs will run on platform threads");
+			threadFactory = platformThreadFactory(instanceName + "_Worker-");
+		}
+		log.info("Thread pool initialized with max concurrency {}", maxConcurrency);
+	}
+
+	/**
+	 * Runs the job on a new thread, waiting for a free slot if the concurrency cap was reached.
+	 * @return false if the pool was shut down
+	 */
+	@Override
+	public boolean runInThread(final Runnable runnable) {
+		if (runnable == null || shutdown) {
+			return false;
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		if (shutdown) {
+			permits.release();
+			return false;
+		}
+
+		running.incrementAndGet();
+		try {
+			threadFactory.newThread(() -> {
+				try {
+					runnable.run();
+				} finally {
+					running.decrementAndGet();
+					permits.release();
+				}
+			}).start();
+		} catch (RuntimeException | Error e) {
+			running.decrementAndGet();
+			permits.release();
+			log.error("Job thread could not be started", e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until at least one slot is free.
+	 * @return number of free slots
+	 */
+	@Override
+	public int blockForAvailableThreads() {
+		while (!shutdown) {
+			try {
+				if (permits.tryAcquire(500, TimeUnit.MILLISECONDS)) {
+					permits.release();
+					return Math.max(permits.availablePermits(), 1);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void shutdown(boolean waitForJobsToComplete) {
+		shutdown = true;
+		if (!waitForJobsToComplete || permits == null) {
+			return;
+		}
+		log.info("Waiting for {} running jobs to complete", running.get());
+		permits.acquireUninterruptibly(maxConcurrency);
+		permits.release(maxConcurrency);
+		log.info("Thread pool stopped");
+	}
+
+	@Override
+	public int getPoolSize() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @return number of jobs currently running
+	 */
+	public int getRunningCount() {
+		return running.get();
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @param maxConcurrency maximum number of jobs running at the same time
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	@Override
+	public void setInstanceId(String schedInstId) {
+	}
+
+	@Override
+	public void setInstanceName(String schedName) {
+		this.instanceName = schedName;
+	}
+
+	/**
+	 * @return true if this runtime supports virtual threads
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return virtualThreadFactory("probe-") != null;
+	}
+
+	/**
+	 * Builds a factory of named virtual threads, equivalent to
+	 * {@code Thread.ofVirtual().name(prefix, 0).factory()}.
+	 * @return null if the runtime has no virtual threads
+	 */
+	private static ThreadFactory virtualThreadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			log.debug("virtual threads not available: {}", e.toString());
+			return null;
+		}
+	}
+
+	private static ThreadFactory platformThreadFactory(final String prefix) {
+		final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = defaultFactory.newThread(runnable);
+			thread.setName(prefix + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,533 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.simulation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.datamirror.ea.api.DataSource;
+import com.datamirror.ea.api.publisher.Publisher;
+import com.datamirror.ea.api.publisher.Subscription;
+import com.demo.management.idr.metrics.RollingPercentiles;
+import com.demo.management.idr.util.DataSourceFactory;
+
+/**
+ * In-process Access Server for load and soak tests.  Plugged into 
+ * {@link com.demo.management.idr.util.AccessServerSessionPool#setDataSourceFactory}, it
+ * answers the calls made by {@link com.demo.management.idr.util.AccessServerUtil} 
+ * without a CDC installation.
+ * 
+ * Every call waits for the configured latency and, when the method can throw 
+ * {@link ApiException}, fails with the configured failure rate.  Subscriptions stay 
+ * active for an exponentially distributed time (meanTimeBetweenFailures), then stop
+ * until they are started again; a started subscription becomes active after 
+ * startDuration.  Transitions are applied when the status is read, so an idle
+ * subscription costs nothing.  Methods not used by the tool return null, 0 or false.
+ *
+ * With a hang rate, calls made through a connection (connecting, locating or reading
+ * a datastore) may block until the connection is closed, ignoring interrupts, as calls
+ * to an agent that stopped responding do.
+ *
+ * @author dlema
+ */
+public class SimulatedAccessServer implements DataSourceFactory {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(SimulatedAccessServer.class.getName());
+
+	// restart latencies kept for percentiles, and for how long (in milliseconds)
+	private static final int RESTART_LATENCY_SAMPLES = 100000;
+	private static final long RESTART_LATENCY_WINDOW = 300000;
+
+	// subscriptions by datastore and name
+	private final Map<String, Map<String, SimulatedSubscription>> dataStores = new ConcurrentHashMap<>();
+
+	private volatile long latency = 0;
+	private volatile long latencyJitter = 0;
+	private volatile long startLatency = 0;
+	private volatile double failureRate = 0;
+	private volatile double startFailureRate = 0;
+	private volatile long meanTimeBetweenFailures = 0;
+	private volatile long startDuration = 0;
+	private volatile double hangRate = 0;
+
+	// statistics
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder callFailures = new LongAdder();
+	private final LongAdder hangs = new LongAdder();
+	private final LongAdder statusReads = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder starts = new LongAdder();
+	private final LongAdder startFailures = new LongAdder();
+	private final RollingPercentiles restartLatency = 
+			new RollingPercentiles(RESTART_LATENCY_SAMPLES, RESTART_LATENCY_WINDOW);
+
+	/**
+	 * Adds an active subscription.  Subscriptions not added are not found.
+	 *
+	 * @param dataStore source datastore
+	 * @param name subscription name
+	 */
+	public void addSubscription(String dataStore, String name) {
+		dataStores.computeIfAbsent(dataStore, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(name, k -> new SimulatedSubscription(name));
+	}
+
+	/**
+	 * @return number of subscriptions in all datastores
+	 */
+	public int getSubscriptionCount() {
+		int count = 0;
+		for (Map<String, SimulatedSubscription> subscriptions : dataStores.values()) {
+			count += subscriptions.size();
+		}
+		return count;
+	}
+
+	/**
+	 * @return number of subscriptions not active right now, including those starting
+	 */
+	public int getInactiveCount() {
+		long now = System.currentTimeMillis();
+		int count = 0;
+		for (Map<String, SimulatedSubscription> subscriptions : dataStores.values()) {
+			for (SimulatedSubscription subscription : subscriptions.values()) {
+				if (subscription.status(now) != Subscription.LIVE_STATUS_ACTIVE) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public DataSource createDataSource() {
+		return new SimulatedDataSource().proxy;
+	}
+
+	/**
+	 * Waits for the latency of a call and, if allowed, fails it with the failure rate
+	 *
+	 * @param extra latency added to the configured one (in milliseconds)
+	 * @param mayFail false for methods that do not declare ApiException
+	 * @throws ApiException if the call was chosen to fail or the wait was interrupted
+	 */
+	private void call(long extra, boolean mayFail) throws ApiException {
+		call(extra, mayFail, null);
+	}
+
+	/**
+	 * Waits for the latency of a call made through a connection, which may also hang
+	 * with the hang rate
+	 *
+	 * @param connection connection used by the call, null if the call cannot hang
+	 * @see #call(long, boolean)
+	 */
+	private void call(long extra, boolean mayFail, SimulatedDataSource connection) throws ApiException {
+		calls.increment();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (connection != null && hangRate > 0 && random.nextDouble() < hangRate) {
+			hangs.increment();
+			connection.awaitClose();
+			throw new ApiException("Simulated Access Server connection closed");
+		}
+		long wait = latency + extra + (latencyJitter > 0 ? random.nextLong(latencyJitter + 1) : 0);
+		if (wait > 0) {
+			try {
+				Thread.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ApiException("Interrupted while waiting for the simulated Access Server");
+			}
+		}
+		if (mayFail && failureRate > 0 && random.nextDouble() < failureRate) {
+			callFailures.increment();
+			throw new ApiException("Simulated Access Server failure");
+		}
+	}
+
+	/**
+	 * Connection to the simulated server.  Each connection has its own publishers, which
+	 * share the subscriptions of the server.
+	 */
+	private final class SimulatedDataSource implements InvocationHandler {
+
+		private final DataSource proxy = proxy(DataSource.class, this);
+		private final Map<String, Publisher> publishers = new ConcurrentHashMap<>();
+		private volatile boolean open = false;
+		private boolean closed = false;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "connect":
+				call(0, true, this);
+				open = true;
+				return null;
+			case "isOpen":
+				return open;
+			case "close":
+				open = false;
+				synchronized (this) {
+					closed = true;
+					notifyAll();
+				}
+				return null;
+			case "getPublisher":
+				call(0, false, this);
+				Map<String, SimulatedSubscription> subscriptions = dataStores.get(args[0]);
+				if (subscriptions == null) {
+					return null;
+				}
+				return publishers.computeIfAbsent((String) args[0], 
+						name -> new SimulatedPublisher(name, subscriptions, this).proxy);
+			default:
+				return defaultValue(proxy, method, args);
+			}
+		}
+
+		/**
+		 * Blocks until the connection is closed.  Interrupts are not honoured, only kept.
+		 */
+		synchronized void awaitClose() {
+			boolean interrupted = false;
+			while (!closed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Source datastore, as seen through one connection
+	 */
+	private final class SimulatedPublisher implements InvocationHandler {
+
+		private final Publisher proxy = proxy(Publisher.class, this);
+		private final String name;
+		private final Map<String, SimulatedSubscription> subscriptions;
+		private final SimulatedDataSource connection;
+		private volatile boolean connected = false;
+
+		SimulatedPublisher(String name, Map<String, SimulatedSubscription> subscriptions, 
+				SimulatedDataSource connection) {
+			this.name = name;
+			this.subscriptions = subscriptions;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "getName":
+				return name;
+			case "connect":
+				call(0, true, connection);
+				connected = true;
+				return null;
+			case "isConnected":
+				return connected;
+			case "disconnect":
+				connected = false;
+				return null;
+			case "getSubscriptionNames":
+				call(0, true, connection);
+				return subscriptions.keySet().toArray(new String[0]);
+			case "getSubscription":
+				call(0, true, connection);
+				SimulatedSubscription subscription = subscriptions.get(args[0]);
+				return subscription != null ? subscription.proxy : null;
+			default:
+				return defaultValue(proxy, method, args);
+			}
+		}
+	}
+
+	/**
+	 * State of a subscription, shared by every connection
+	 */
+	private final class SimulatedSubscription implements InvocationHandler {
+
+		private final Subscription proxy = proxy(Subscription.class, this);
+		private final String name;
+		private byte status = Subscription.LIVE_STATUS_ACTIVE;
+		private long nextFailure;
+		private long failedAt;
+		private long activeAt;
+
+		SimulatedSubscription(String name) {
+			this.name = name;
+			this.nextFailure = nextFailure(System.currentTimeMillis());
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "getName":
+				return name;
+			case "getLiveActivityStatus":
+				call(0, true);
+				statusReads.increment();
+				return new byte[] {0, status(System.currentTimeMillis())};
+			case "startMirror":
+				call(startLatency, true);
+				start(System.currentTimeMillis());
+				return null;
+			case "stopMirror":
+				call(0, true);
+				stop(System.currentTimeMillis());
+				return null;
+			default:
+				return defaultValue(proxy, method, args);
+			}
+		}
+
+		/**
+		 * Applies the transitions due at the given time
+		 *
+		 * @return status at that time
+		 */
+		synchronized byte status(long now) {
+			if (status == Subscription.LIVE_STATUS_ACTIVE && now >= nextFailure) {
+				status = Subscription.LIVE_STATUS_IDLE;
+				failedAt = nextFailure;
+				failures.increment();
+				logger.debug("simulated subscription {} stopped", name);
+			} else if (status == Subscription.LIVE_STATUS_START && now >= activeAt) {
+				status = Subscription.LIVE_STATUS_ACTIVE;
+				nextFailure = nextFailure(activeAt);
+			}
+			return status;
+		}
+
+		synchronized void start(long now) throws ApiException {
+			if (status(now) != Subscription.LIVE_STATUS_IDLE) {
+				return;
+			}
+			if (startFailureRate > 0 && ThreadLocalRandom.current().nextDouble() < startFailureRate) {
+				startFailures.increment();
+				throw new ApiException("Simulated failure starting subscription " + name);
+			}
+			status = Subscription.LIVE_STATUS_START;
+			activeAt = now + startDuration;
+			starts.increment();
+			restartLatency.record(activeAt - failedAt);
+		}
+
+		synchronized void stop(long now) {
+			if (status(now) != Subscription.LIVE_STATUS_IDLE) {
+				status = Subscription.LIVE_STATUS_IDLE;
+				failedAt = now;
+			}
+		}
+
+		/**
+		 * @return time of the next failure of a subscription active since the given time
+		 */
+		private long nextFailure(long since) {
+			long mean = meanTimeBetweenFailures;
+			if (mean <= 0) {
+				return Long.MAX_VALUE;
+			}
+			return since + (long) (-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+		}
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(SimulatedAccessServer.class.getClassLoader(), 
+				new Class<?>[] {type}, handler));
+	}
+
+	/**
+	 * Answer of the methods the simulation does not implement
+	 */
+	private static Object defaultValue(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "toString":
+			return "simulated " + method.getDeclaringClass().getSimpleName();
+		default:
+			break;
+		}
+		Class<?> type = method.getReturnType();
+		if (type == boolean.class) {
+			return false;
+		} else if (type == byte.class) {
+			return (byte) 0;
+		} else if (type == short.class) {
+			return (short) 0;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == float.class) {
+			return 0f;
+		} else if (type == double.class) {
+			return 0d;
+		} else if (type == char.class) {
+			return '\0';
+		}
+		return null;
+	}
+
+	/**
+	 * @param latency time every call waits (in milliseconds)
+	 */
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * @param latencyJitter maximum random time added to the latency of every call (in milliseconds)
+	 */
+	public void setLatencyJitter(long latencyJitter) {
+		this.latencyJitter = latencyJitter;
+	}
+
+	/**
+	 * @param startLatency time startMirror waits on top of the latency (in milliseconds)
+	 */
+	public void setStartLatency(long startLatency) {
+		this.startLatency = startLatency;
+	}
+
+	/**
+	 * @param failureRate probability, between 0 and 1, that a call throws ApiException
+	 */
+	public void setFailureRate(double failureRate) {
+		this.failureRate = failureRate;
+	}
+
+	/**
+	 * @param startFailureRate probability, between 0 and 1, that starting a stopped subscription fails
+	 */
+	public void setStartFailureRate(double startFailureRate) {
+		this.startFailureRate = startFailureRate;
+	}
+
+	/**
+	 * @param meanTimeBetweenFailures mean time a subscription stays active (in milliseconds), 
+	 * 0 for subscriptions that never stop
+	 */
+	public void setMeanTimeBetweenFailures(long meanTimeBetweenFailures) {
+		this.meanTimeBetweenFailures = meanTimeBetweenFailures;
+	}
+
+	/**
+	 * @param startDuration time a started subscription takes to become active (in milliseconds)
+	 */
+	public void setStartDuration(long startDuration) {
+		this.startDuration = startDuration;
+	}
+
+	/**
+	 * @param hangRate probability, between 0 and 1, that a call made through a connection
+	 * blocks until the connection is closed
+	 */
+	public void setHangRate(double hangRate) {
+		this.hangRate = hangRate;
+	}
+
+	/**
+	 * @return number of calls received
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * @return number of calls that failed on purpose
+	 */
+	public long getCallFailures() {
+		return callFailures.sum();
+	}
+
+	/**
+	 * @return number of calls that hung on purpose
+	 */
+	public long getHangs() {
+		return hangs.sum();
+	}
+
+	/**
+	 * @return number of subscription status reads
+	 */
+	public long getStatusReads() {
+		return statusReads.sum();
+	}
+
+	/**
+	 * @return number of times a subscription stopped
+	 */
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	/**
+	 * @return number of stopped subscriptions started
+	 */
+	public long getStarts() {
+		return starts.sum();
+	}
+
+	/**
+	 * @return number of starts that failed on purpose
+	 */
+	public long getStartFailures() {
+		return startFailures.sum();
+	}
+
+	/**
+	 * Restart latency is the time from a subscription stopping until it is active again,
+	 * so it includes the time the tool takes to notice the stop.
+	 *
+	 * @param quantiles requested quantiles, between 0 and 1
+	 * @return restart latency at each quantile over the last 5 minutes (in milliseconds)
+	 */
+	public long[] getRestartLatency(double... quantiles) {
+		return restartLatency.getPercentiles(quantiles);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("subscriptions: %d, calls: %d, call failures: %d, hangs: %d, status reads: %d, "
+				+ "stops: %d, starts: %d, start failures: %d", getSubscriptionCount(), getCalls(), 
+				getCallFailures(), getHangs(), getStatusReads(), getFailures(), getStarts(), getStartFailures());
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import com.demo.management.idr.scheduler.IdrSchedulerService;
+import com.demo.management.idr.scheduler.SchedulerTelemetry;
+import com.demo.management.idr.scheduler.SchedulerTelemetryMXBean;
+import com.demo.management.idr.scheduler.SimpleSubscriptionStarter;
+import com.demo.management.idr.util.AccessServerSessionPool;
+import com.demo.management.idr.util.AccessServerWatchdog;
+import com.demo.management.idr.util.CredentialService;
+import com.demo.management.idr.util.RestartVerifier;
+
+/**
+ * Runs the real IdrSchedulerService against a {@link SimulatedAccessServer} and reports
+ * checks per second, job run time, restart latency and heap use while it runs.  Running
+ * it with simulation.logLevel set to TRACE and then to WARN shows what logging costs
+ * each job.
+ * 
+ * Usage: java -cp IdrRestartSchedulingTool-0.0.1-jar-with-dependencies.jar:api.jar 
+ * -Dsimulation.meanTimeBetweenFailures=600000 ... 
+ * com.demo.management.idr.simulation.SimulationDriver [subscriptions] [seconds]
+ * 
+ * Simulation properties (times in milliseconds):
+ * simulation.dataStores, simulation.cronPattern, simulation.latency, simulation.latencyJitter,
+ * simulation.startLatency, simulation.failureRate, simulation.startFailureRate, 
+ * simulation.meanTimeBetweenFailures, simulation.startDuration, simulation.hangRate, 
+ * simulation.reportInterval, simulation.logLevel and simulation.settings, a file with a 
+ * settings element copied into the generated configuration file.
+ *
+ * @author dlema
+ */
+public class SimulationDriver {
+
+	private static final int DEFAULT_SUBSCRIPTIONS = 1000;
+	private static final int DEFAULT_DURATION = 300;
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private final int subscriptions;
+	private final int dataStores = Integer.getInteger("simulation.dataStores", 10);
+	private final String cronPattern = System.getProperty("simulation.cronPattern", "0 0/1 * ? * * *");
+	private final long reportInterval = Long.getLong("simulation.reportInterval", 10000);
+	private final String settingsFile = System.getProperty("simulation.settings");
+
+	private final SimulatedAccessServer accessServer = new SimulatedAccessServer();
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private long maxHeapUsed = 0;
+
+	public SimulationDriver(int subscriptions) {
+		this.subscriptions = subscriptions;
+		accessServer.setLatency(Long.getLong("simulation.latency", 5));
+		accessServer.setLatencyJitter(Long.getLong("simulation.latencyJitter", 5));
+		accessServer.setStartLatency(Long.getLong("simulation.startLatency", 50));
+		accessServer.setFailureRate(Double.parseDouble(System.getProperty("simulation.failureRate", "0.001")));
+		accessServer.setStartFailureRate(Double.parseDouble(
+				System.getProperty("simulation.startFailureRate", "0.01")));
+		accessServer.setMeanTimeBetweenFailures(Long.getLong("simulation.meanTimeBetweenFailures", 3600000));
+		accessServer.setStartDuration(Long.getLong("simulation.startDuration", 10000));
+		accessServer.setHangRate(Double.parseDouble(System.getProperty("simulation.hangRate", "0")));
+	}
+
+	/**
+	 * Runs the service against the simulated Access Server for the given time
+	 *
+	 * @param seconds duration of the run
+	 * @throws Exception
+	 */
+	public void run(int seconds) throws Exception {
+		for (int i = 0; i < subscriptions; i++) {
+			accessServer.addSubscription(dataStore(i), subscription(i));
+		}
+		AccessServerSessionPool.getInstance().setDataSourceFactory(accessServer);
+
+		Path configurationFile = writeConfiguration();
+		IdrSchedulerService service = new IdrSchedulerService();
+		service.setConfigFile(configurationFile.toString());
+		Thread serviceThread = new Thread(service, "IdrSchedulerService");
+
+		System.out.printf("Simulating %d subscriptions in %d datastores for %d seconds%n", 
+				subscriptions, dataStores, seconds);
+		long start = System.currentTimeMillis();
+		long end = start + seconds * 1000L;
+		serviceThread.start();
+
+		long lastTime = start;
+		long lastFired = 0;
+		long lastReads = 0;
+		while (serviceThread.isAlive() && System.currentTimeMillis() < end) {
+			Thread.sleep(Math.min(reportInterval, Math.max(end - System.currentTimeMillis(), 1)));
+			long now = System.currentTimeMillis();
+			long fired = jobStatistics()[0];
+			long reads = accessServer.getStatusReads();
+			report(now - start, perSecond(fired - lastFired, now - lastTime), 
+					perSecond(reads - lastReads, now - lastTime));
+			lastTime = now;
+			lastFired = fired;
+			lastReads = reads;
+		}
+
+		service.stop();
+		serviceThread.join();
+
+		long elapsed = System.currentTimeMillis() - start;
+		System.out.println("==== Simulation summary ====");
+		System.out.println(accessServer);
+		System.out.println("Watchdog - " + AccessServerWatchdog.getInstance());
+		System.out.println("Restart verification - " + RestartVerifier.getInstance());
+		report(elapsed, perSecond(jobStatistics()[0], elapsed), 
+				perSecond(accessServer.getStatusReads(), elapsed));
+		System.out.printf("max heap used: %d MB%n", maxHeapUsed / MEGABYTE);
+		Files.deleteIfExists(configurationFile);
+	}
+
+	private void report(long elapsed, double checks, double reads) throws MalformedObjectNameException {
+		long heapUsed = memory.getHeapMemoryUsage().getUsed();
+		maxHeapUsed = Math.max(maxHeapUsed, heapUsed);
+		long[] restart = accessServer.getRestartLatency(0.5, 0.99);
+		long[] jobs = jobStatistics();
+		System.out.printf("%6ds checks/s: %8.1f, status reads/s: %8.1f, job run time p50: %5d ms, p99: %5d ms, "
+				+ "stopped now: %6d, restarts: %6d, restart latency p50: %6d ms, p99: %6d ms, heap used: %5d MB%n", 
+				elapsed / 1000, checks, reads, jobs[1], jobs[2], 
+				accessServer.getInactiveCount(), accessServer.getStarts(), restart[0], restart[1], 
+				heapUsed / MEGABYTE);
+	}
+
+	private static double perSecond(long count, long millis) {
+		return millis > 0 ? count * 1000.0 / millis : 0;
+	}
+
+	/**
+	 * Reads the scheduler telemetry published by the service
+	 *
+	 * @return jobs fired, run time p50 and p99 (in milliseconds), all 0 until the service 
+	 * publishes its telemetry
+	 */
+	private static long[] jobStatistics() throws MalformedObjectNameException {
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(SchedulerTelemetry.OBJECT_NAME);
+		if (!mbeanServer.isRegistered(name)) {
+			return new long[3];
+		}
+		SchedulerTelemetryMXBean telemetry = JMX.newMXBeanProxy(mbeanServer, name, SchedulerTelemetryMXBean.class);
+		return new long[] {telemetry.getFiredCount(), telemetry.getRunTimeP50(), telemetry.getRunTimeP99()};
+	}
+
+	private String dataStore(int subscription) {
+		return "SIMDS" + (subscription % dataStores);
+	}
+
+	private static String subscription(int subscription) {
+		return "SIMSUB" + subscription;
+	}
+
+	/**
+	 * Writes a configuration file checking every simulated subscription
+	 *
+	 * @return the file
+	 * @throws IOException
+	 */
+	private Path writeConfiguration() throws IOException {
+		String password = CredentialService.getInstance().getEncryptor().encrypt("simulation");
+		Path file = Files.createTempFile("simulation-", ".xml");
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+			out.write("<configuration>\n");
+			out.write("    <accessServer>simulation</accessServer>\n");
+			out.write("    <port>10101</port>\n");
+			out.write("    <userId>simulation</userId>\n");
+			out.write("    <password>" + password + "</password>\n");
+			if (settingsFile != null) {
+				out.write(new String(Files.readAllBytes(Paths.get(settingsFile)), StandardCharsets.UTF_8)
+						.replaceFirst("^<\\?xml[^>]*>", ""));
+				out.write("\n");
+			}
+			out.write("    <subscriptions>\n");
+			for (int i = 0; i < subscriptions; i++) {
+				out.write("        <subscription subscriptionId=\"" + subscription(i) + "\">\n");
+				out.write("            <subscriptionName>" + subscription(i) + "</subscriptionName>\n");
+				out.write("            <sourceDataStore>" + dataStore(i) + "</sourceDataStore>\n");
+				out.write("            <cronPattern>" + cronPattern + "</cronPattern>\n");
+				out.write("            <loaderClass>" + SimpleSubscriptionStarter.class.getName() + "</loaderClass>\n");
+				out.write("            <enabled>true</enabled>\n");
+				out.write("        </subscription>\n");
+			}
+			out.write("    </subscriptions>\n");
+			out.write("</configuration>\n");
+		}
+		return file;
+	}
+
+	/**
+	 * @param args number of subscriptions and duration in seconds, both optional
+	 */
+	public static void main(String[] args) throws Exception {
+		int subscriptions = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SUBSCRIPTIONS;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DURATION;
+
+		// logging every check would measure the logger instead of the scheduler
+		Configurator.setLevel("com.demo.management.idr", 
+				Level.toLevel(System.getProperty("simulation.logLevel"), Level.WARN));
+
+		new SimulationDriver(subscriptions).run(seconds);
+		System.exit(0);
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.DataSource;
+import com.datamirror.ea.api.ReplicationRole;
+import com.demo.management.idr.metrics.AccessServerMetrics;
+
+/**
+ * An open Access Server connection together with the source datastores already
+ * connected through it.  Sessions are handed out by {@link AccessServerSessionPool}
+ * and are used by a single job at a time.
+ *
+ * @author dlema
+ */
+public class AccessServerSession {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(AccessServerSession.class.getName());
+
+	private final String key;
+	private final DataSource dataSource;
+	private final Map<String, ReplicationRole> publishers = new HashMap<>();
+	private long lastUsed;
+
+	// set by the watchdog when a call through this session missed its deadline
+	private volatile boolean quarantined = false;
+
+	AccessServerSession(String key, DataSource dataSource) {
+		this.key = key;
+		this.dataSource = dataSource;
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return true if the Access Server connection is still open and the session was
+	 * not quarantined
+	 */
+	public boolean isOpen() {
+		return !quarantined && dataSource.isOpen();
+	}
+
+	/**
+	 * @return true if a call through this session missed its deadline
+	 */
+	public boolean isQuarantined() {
+		return quarantined;
+	}
+
+	/**
+	 * Takes the session out of use after a call through it missed its deadline, and
+	 * closes the Access Server connection so the blocked call fails.  Called from the
+	 * watchdog while the job still holds the session, so the datastores are left to
+	 * {@link #close()}.
+	 */
+	public void quarantine() {
+		quarantined = true;
+		logger.warn("Access Server session {} quarantined", key);
+		try {
+			dataSource.close();
+		} catch (RuntimeException e) {
+			logger.debug("error closing quarantined Access Server session {}", key, e);
+		}
+	}
+
+	/**
+	 * Returns a publisher previously connected through this session.
+	 *
+	 * @param datastoreName the name of the datastore
+	 * @return the connected publisher, null if it was never connected or the connection was lost
+	 */
+	public ReplicationRole getPublisher(String datastoreName) {
+		ReplicationRole datastore = publishers.get(datastoreName);
+		if (datastore != null && !datastore.isConnected()) {
+			logger.debug("cached connection to datastore {} was lost", datastoreName);
+			publishers.remove(datastoreName);
+			datastore = null;
+		}
+		return datastore;
+	}
+
+	/**
+	 * Keeps a connected publisher for later jobs using this session.
+	 *
+	 * @param datastoreName the name of the datastore
+	 * @param datastore connected publisher
+	 */
+	public void putPublisher(String datastoreName, ReplicationRole datastore) {
+		publishers.put(datastoreName, datastore);
+	}
+
+	/**
+	 * Disconnects every datastore and closes the Access Server connection. Errors are
+	 * logged and ignored, since the session is being discarded anyway.
+	 */
+	public void close() {
+		logger.traceEntry(key);
+		for (ReplicationRole datastore : publishers.values()) {
+			try {
+				if (datastore.isConnected()) {
+					datastore.disconnect();
+				}
+			} catch (RuntimeException e) {
+				logger.debug("error disconnecting from datastore {}", datastore.getName(), e);
+			}
+		}
+		publishers.clear();
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			if (dataSource.isOpen()) {
+				dataSource.close();
+			}
+			error = false;
+		} catch (RuntimeException e) {
+			logger.debug("error closing Access Server session {}", key, e);
+		} finally {
+			AccessServerMetrics.getInstance().record(AccessServerMetrics.DISCONNECT_ACCESS_SERVER, 
+					AccessServerMetrics.NO_DATASTORE, System.nanoTime() - start, error);
+		}
+		logger.traceExit();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	long getLastUsed() {
+		return lastUsed;
+	}
+
+	void touch() {
+		lastUsed = System.currentTimeMillis();
+	}
+}
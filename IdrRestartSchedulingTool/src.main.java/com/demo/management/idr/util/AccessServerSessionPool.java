@@ -0,0 +1,324 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.datamirror.ea.api.DataSource;
+import com.datamirror.ea.api.DefaultContext;
+import com.demo.management.idr.metrics.AccessServerMetrics;
+
+/**
+ * Keeps Access Server sessions open between jobs, so each restart check does not
+ * have to log in again.  Sessions are keyed by server, port, user and a digest of the
+ * password, so a changed password never reuses a session opened with the old one; each key
+ * holds a stack of idle sessions that are validated before being handed out and
+ * evicted when they have been idle for too long or are found broken.
+ *
+ * @author dlema
+ */
+public class AccessServerSessionPool {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(AccessServerSessionPool.class.getName());
+
+	// Default time a session may stay idle before being closed (in milliseconds)
+	private static final long DEFAULT_IDLE_TIMEOUT = 300000;
+
+	// Default number of idle sessions kept for each key
+	private static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
+
+	private static final AccessServerSessionPool instance = new AccessServerSessionPool();
+
+	private final Map<String, Deque<AccessServerSession>> idleSessions = new ConcurrentHashMap<>();
+
+	private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	private volatile int maxIdlePerKey = DEFAULT_MAX_IDLE_PER_KEY;
+	private volatile DataSourceFactory dataSourceFactory = DataSourceFactory.TOOLKIT;
+
+	// statistics
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	AccessServerSessionPool() {
+	}
+
+	/**
+	 * @return the pool shared by all jobs in this process
+	 */
+	public static AccessServerSessionPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Hands out an open session for the given Access Server and user.  An idle session
+	 * is reused when one is available and still open; otherwise a new connection is made.
+	 *
+	 * @param server Access Server host name
+	 * @param port Access Server port
+	 * @param user Access Server user
+	 * @param password Access Server password (not encrypted)
+	 * @return an open session, which must be given back with {@link #release} or {@link #invalidate}
+	 * @throws CircuitOpenException if a new connection is needed and the circuit breaker of
+	 * the Access Server is open
+	 * @throws ApiException if a new connection could not be established
+	 */
+	public AccessServerSession borrow(String server, String port, String user, String password) throws ApiException {
+		String key = keyOf(server, port, user, password);
+		Deque<AccessServerSession> sessions = idleSessions.get(key);
+
+		if (sessions != null) {
+			long now = System.currentTimeMillis();
+			AccessServerSession session;
+			while ((session = sessions.pollFirst()) != null) {
+				if (now - session.getLastUsed() > idleTimeout || !session.isOpen()) {
+					discard(session);
+					continue;
+				}
+				hits.incrementAndGet();
+				logger.trace("reusing Access Server session {}", key);
+				return session;
+			}
+		}
+
+		misses.incrementAndGet();
+		DataSource accessServer = CircuitBreakers.getInstance().server(server, port)
+				.call(() -> connect(server, port, user, password));
+		return new AccessServerSession(key, accessServer);
+	}
+
+	/**
+	 * Gives back a healthy session so later jobs can reuse it.
+	 *
+	 * @param session session obtained from {@link #borrow}
+	 */
+	public void release(AccessServerSession session) {
+		if (session == null) {
+			return;
+		}
+		if (!session.isOpen()) {
+			discard(session);
+			return;
+		}
+
+		session.touch();
+		Deque<AccessServerSession> sessions = idleSessions.computeIfAbsent(session.getKey(),
+				k -> new ConcurrentLinkedDeque<>());
+		sessions.offerFirst(session);
+
+		// keeps at most maxIdlePerKey sessions, dropping the least recently used
+		while (sessions.size() > maxIdlePerKey) {
+			AccessServerSession eldest = sessions.pollLast();
+			if (eldest == null) {
+				break;
+			}
+			discard(eldest);
+		}
+	}
+
+	/**
+	 * Closes a session that failed while in use, instead of returning it to the pool.
+	 *
+	 * @param session session obtained from {@link #borrow}
+	 */
+	public void invalidate(AccessServerSession session) {
+		if (session != null) {
+			logger.debug("Access Server session {} invalidated", session.getKey());
+			discard(session);
+		}
+	}
+
+	/**
+	 * Closes every idle session that exceeded the idle timeout or is no longer open.
+	 *
+	 * @return number of sessions evicted
+	 */
+	public int evictIdle() {
+		long now = System.currentTimeMillis();
+		int evicted = 0;
+		for (Deque<AccessServerSession> sessions : idleSessions.values()) {
+			Iterator<AccessServerSession> iterator = sessions.iterator();
+			while (iterator.hasNext()) {
+				AccessServerSession session = iterator.next();
+				if ((now - session.getLastUsed() > idleTimeout || !session.isOpen())
+						&& sessions.removeFirstOccurrence(session)) {
+					discard(session);
+					evicted++;
+				}
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Closes every idle session.  Used when the service stops.
+	 */
+	public void closeAll() {
+		logger.traceEntry();
+		for (Deque<AccessServerSession> sessions : idleSessions.values()) {
+			AccessServerSession session;
+			while ((session = sessions.pollFirst()) != null) {
+				session.close();
+			}
+		}
+		logger.traceExit();
+	}
+
+	/**
+	 * @return number of borrows served by an already open session
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return number of borrows that needed a new Access Server connection
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return number of sessions closed because they were idle, broken or invalidated
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return number of sessions currently waiting to be reused
+	 */
+	public int getIdleCount() {
+		int count = 0;
+		for (Deque<AccessServerSession> sessions : idleSessions.values()) {
+			count += sessions.size();
+		}
+		return count;
+	}
+
+	/**
+	 * @return String representation of the pool statistics
+	 */
+	@Override
+	public String toString() {
+		return "hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions()
+				+ ", idle sessions: " + getIdleCount();
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public int getMaxIdlePerKey() {
+		return maxIdlePerKey;
+	}
+
+	public void setMaxIdlePerKey(int maxIdlePerKey) {
+		this.maxIdlePerKey = maxIdlePerKey;
+	}
+
+	public DataSourceFactory getDataSourceFactory() {
+		return dataSourceFactory;
+	}
+
+	/**
+	 * Replaces the factory of new Access Server connections.  Open sessions are closed,
+	 * so every session handed out afterwards comes from the new factory.
+	 *
+	 * @param dataSourceFactory factory for new connections
+	 */
+	public void setDataSourceFactory(DataSourceFactory dataSourceFactory) {
+		this.dataSourceFactory = dataSourceFactory;
+		closeAll();
+	}
+
+	private void discard(AccessServerSession session) {
+		evictions.incrementAndGet();
+		session.close();
+	}
+
+	/**
+	 * @return pool key; the password is only present as a truncated SHA-256 digest, since
+	 * the key is logged
+	 */
+	private static String keyOf(String server, String port, String user, String password) {
+		String credential = "";
+		if (password != null) {
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+				StringBuilder sb = new StringBuilder();
+				for (int i = 0; i < 8; i++) {
+					sb.append(String.format("%02x", digest[i]));
+				}
+				credential = sb.toString();
+			} catch (NoSuchAlgorithmException e) {
+				// every Java platform supports SHA-256
+				throw new IllegalStateException(e);
+			}
+		}
+		return server + ":" + port + ":" + user + "#" + credential;
+	}
+
+	/**
+	 * Opens a new connection to access server.
+	 */
+	private DataSource connect(String server, String port, String user, String password) throws ApiException {
+		logger.traceEntry("connecting to Access Server {} at port {} with user {}", server, port, user);
+		try {
+			DataSource accessServer = dataSourceFactory.createDataSource();
+
+			DefaultContext eaAccessContext = new DefaultContext();
+			eaAccessContext.setString(DataSource.User, user);
+			eaAccessContext.setString(DataSource.Password, password);
+			eaAccessContext.setString(DataSource.Hostname, server);
+			eaAccessContext.setInt(DataSource.Port, Integer.parseInt(port));
+			AccessServerWatchdog.getInstance().run(AccessServerWatchdog.Phase.CONNECT, AccessServerMetrics.NO_DATASTORE,
+					accessServer::close, () -> AccessServerMetrics.getInstance().run(
+							AccessServerMetrics.CONNECT_ACCESS_SERVER, AccessServerMetrics.NO_DATASTORE, 
+							() -> accessServer.connect(eaAccessContext)));
+
+			logger.trace("Connected.");
+			return logger.traceExit(accessServer);
+		} catch (AccessServerTimeoutException e) {
+			throw logger.throwing(e);
+		} catch (ApiException e) {
+			throw logger.throwing(new ApiException("Failed to connect to " + server +
+					"@" + port + " as " + user));
+		}
+	}
+}
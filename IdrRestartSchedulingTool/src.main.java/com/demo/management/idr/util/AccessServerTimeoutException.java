@@ -0,0 +1,52 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import com.datamirror.ea.api.ApiException;
+
+/**
+ * Thrown when an Access Server call or a whole job did not end within its deadline.
+ * The session used by the call has been quarantined by then.
+ *
+ * @author dlema
+ */
+public class AccessServerTimeoutException extends ApiException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final AccessServerWatchdog.Phase phase;
+
+	/**
+	 * @param phase phase whose deadline was missed
+	 * @param message description of the call
+	 */
+	public AccessServerTimeoutException(AccessServerWatchdog.Phase phase, String message) {
+		super(message);
+		this.phase = phase;
+	}
+
+	/**
+	 * @return phase whose deadline was missed
+	 */
+	public AccessServerWatchdog.Phase getPhase() {
+		return phase;
+	}
+}
@@ -20,6 +20,13 @@
  */
 package com.demo.management.idr.util;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -27,9 +34,11 @@ import com.datamirror.ea.api.ApiException;
 import com.datamirror.ea.api.DataSource;
 import com.datamirror.ea.api.DefaultContext;
 import com.datamirror.ea.api.ReplicationRole;
-import com.datamirror.ea.api.Toolkit;
+import com.datamirror.ea.api.monitor.MonitorAgentMessageHandler;
 import com.datamirror.ea.api.publisher.Publisher;
 import com.datamirror.ea.api.publisher.Subscription;
+import com.demo.management.idr.journal.RestartJournal;
+import com.demo.management.idr.metrics.AccessServerMetrics;
 
 
 /**
@@ -38,9 +47,16 @@ import com.datamirror.ea.api.publisher.Subscription;
  */
 public class AccessServerUtil {
 
-	Logger logger = LogManager.getLogger(AccessServerUtil.class.getName());
+	private static final Logger logger = LogManager.getLogger(AccessServerUtil.class.getName());
+
+	private final AccessServerMetrics metrics = AccessServerMetrics.getInstance();
+	private final AccessServerWatchdog watchdog = AccessServerWatchdog.getInstance();
 
 	private DataSource accessServer;
+	private AccessServerSession session;
+
+	// live status read by the last check, for the restart journal
+	private byte observedStatus;
 
 	private String server;
 	private String port;
@@ -69,6 +85,8 @@ public class AccessServerUtil {
 	 * @param source
 	 *            true to request source statistics, false to request target
 	 *            statistics.
+	 * @throws CircuitOpenException
+	 *             if the datastore is not connected yet and its circuit breaker is open.
 	 * @throws ApiException
 	 *             if an error occurred.
 	 */
@@ -82,12 +100,37 @@ public class AccessServerUtil {
 
 		ReplicationRole datastore;
 
+		if (source && session != null) {
+			datastore = session.getPublisher(datastoreName);
+			if (datastore != null) {
+				logger.trace("reusing connection to datastore {}", datastoreName);
+				return logger.traceExit(datastore);
+			}
+		}
+
+		datastore = CircuitBreakers.getInstance().dataStore(datastoreName)
+				.call(() -> locateDatastore(datastoreName, source));
+
+		if (source && session != null) {
+			session.putPublisher(datastoreName, datastore);
+		}
+
+		return logger.traceExit(datastore);
+	}
+
+	/**
+	 * Does the work of {@link #connectDatastore} for a datastore not connected yet.
+	 */
+	private ReplicationRole locateDatastore(String datastoreName, boolean source) throws ApiException {
+		ReplicationRole datastore;
 		if (source) {
 			logger.trace("datastore {} is expected to be source", datastoreName);
-			datastore = accessServer.getPublisher(datastoreName);
+			datastore = watchdog.call(AccessServerWatchdog.Phase.DATASTORE, datastoreName, quarantine(), 
+					() -> accessServer.getPublisher(datastoreName));
 		} else {
 			logger.trace("datastore {} is expected to be target", datastoreName);
-			datastore = accessServer.getSubscriber(datastoreName);
+			datastore = watchdog.call(AccessServerWatchdog.Phase.DATASTORE, datastoreName, quarantine(), 
+					() -> accessServer.getSubscriber(datastoreName));
 		}
 
 		if (datastore == null) {
@@ -97,76 +140,444 @@ public class AccessServerUtil {
 		if (!datastore.isConnected()) {
 			try {
 				logger.info("Connecting to {}...", datastoreName);
-				datastore.connect();
+				ReplicationRole connecting = datastore;
+				watchdog.run(AccessServerWatchdog.Phase.DATASTORE, datastoreName, quarantine(), 
+						() -> metrics.run(AccessServerMetrics.CONNECT_DATASTORE, datastoreName, connecting::connect));
 				logger.info("Connected.");
+			} catch (AccessServerTimeoutException e) {
+				throw logger.throwing(e);
 			} catch (ApiException e) {
 				throw logger.throwing(new ApiException("Failed to connect to datastore " + 
 						datastoreName + ". " + e.getMessage()));
 			}
 		}
-
-		return logger.traceExit(datastore);
+		return datastore;
 	}
 
 	/**
 	 * starts a specific subscription
 	 * @param sourceDatastore publisher or source datastore holding the subscription
 	 * @param subscriptionName name for the subscription
+	 * @return outcome of the check
 	 * @throws ApiException
 	 */
-	public void startMirroring(String sourceDatastore, String subscriptionName) throws ApiException {
+	public MirroringOutcome startMirroring(String sourceDatastore, String subscriptionName) throws ApiException {
 		logger.traceEntry("start mirroring for datastore {}, subscription {}", sourceDatastore, subscriptionName);
+		MirroringOutcome outcome = MirroringOutcome.FAILED;
+		boolean healthy = false;
+		boolean reached = false;
+		long start = System.nanoTime();
 		try {
 
-			connectAccessServer();
+			openSession();
 
 			if (sourceDatastore != null && sourceDatastore.length() > 0) {
 				ReplicationRole datastore = null;
 
 				datastore = connectDatastore(sourceDatastore, true);
 
+				// listing the subscriptions costs a call to the datastore, so it is done only for trace
 				if (logger.isTraceEnabled()) {
-					String[] availableSuscriptions = ((Publisher) datastore).getSubscriptionNames();
-
-					logger.trace("list of available subscriptions on datastore {}", datastore);
-					for (String suscription : availableSuscriptions) {
-						logger.trace(suscription);
-					}
+					Publisher publisher = (Publisher) datastore;
+					logger.trace("list of available subscriptions on datastore {}: {}", datastore,
+							Arrays.asList(watchdog.call(AccessServerWatchdog.Phase.STATUS, sourceDatastore, 
+									quarantine(), publisher::getSubscriptionNames)));
 				}
 
-				Subscription subscription = ((Publisher) datastore).getSubscription(subscriptionName);
+				reached = true;
+				outcome = checkSubscription((Publisher) datastore, sourceDatastore, subscriptionName);
+			} else {
+				logger.warn("Received Source Data Store is null or blank.  Cannot be started");
+			}
+			healthy = true;
+		} catch (CircuitOpenException e) {
+			// nothing was called, so the session is still healthy
+			logger.debug("Check of subscription {} skipped. {}", subscriptionName, e.getMessage());
+			healthy = true;
+			recordCheck(sourceDatastore, subscriptionName, RestartJournal.UNKNOWN_STATUS, 
+					outcome, System.nanoTime() - start);
+		} catch (ApiException e) {
+			logger.error("Error suscripción", e);
+			if (!reached) {
+				// the datastore could not be reached, the check itself journals every other failure
+				recordCheck(sourceDatastore, subscriptionName, RestartJournal.UNKNOWN_STATUS, 
+						outcome, System.nanoTime() - start);
+			}
+		} finally {
+			closeSession(healthy);
+		}
+		return logger.traceExit(outcome);
+	}
 
-				if (subscription != null) {
-					
-					byte status = subscription.getLiveActivityStatus()[1];
-					String statusDesc = describeSubscriptionStatus(status);
-					
-					logger.info("Subscription status: {}", statusDesc);
+	/**
+	 * Takes an Access Server session from the shared pool, connecting only when
+	 * there is no open session available for this server and user.
+	 *
+	 * @throws ApiException
+	 *             if an error occurred.
+	 */
+	public void openSession() throws ApiException {
+		logger.traceEntry();
+		session = AccessServerSessionPool.getInstance().borrow(server, port, user, password);
+		accessServer = session.getDataSource();
+		logger.traceExit();
+	}
+
+	/**
+	 * Gives the Access Server session back to the shared pool.  A session that failed
+	 * while in use is closed instead, so it is not handed to another job.
+	 *
+	 * @param healthy false if an error occurred while using the session
+	 */
+	public void closeSession(boolean healthy) {
+		logger.traceEntry(Boolean.toString(healthy));
+		if (session != null) {
+			if (healthy) {
+				AccessServerSessionPool.getInstance().release(session);
+			} else {
+				AccessServerSessionPool.getInstance().invalidate(session);
+			}
+			session = null;
+			accessServer = null;
+		}
+		logger.traceExit();
+	}
+
+	/**
+	 * starts every stopped subscription in a list, reading all of them through a single
+	 * connection to their source datastore.
+	 * @param sourceDatastore publisher or source datastore holding the subscriptions
+	 * @param subscriptionNames names for the subscriptions
+	 * @throws ApiException
+	 */
+	public void startMirroring(String sourceDatastore, Collection<String> subscriptionNames) throws ApiException {
+		logger.traceEntry("start mirroring for datastore {}, subscriptions {}", sourceDatastore, subscriptionNames);
+		boolean healthy = false;
+		boolean reached = false;
+		long start = System.nanoTime();
+		try {
+
+			openSession();
+
+			if (sourceDatastore != null && sourceDatastore.length() > 0) {
+				Publisher datastore = (Publisher) connectDatastore(sourceDatastore, true);
+
+				Set<String> availableSubscriptions = new HashSet<>(Arrays.asList(watchdog.call(
+						AccessServerWatchdog.Phase.STATUS, sourceDatastore, quarantine(), datastore::getSubscriptionNames)));
+				reached = true;
+				logger.trace("list of available subscriptions on datastore {}: {}", 
+						sourceDatastore, availableSubscriptions);
+
+				int checked = 0;
+				int started = 0;
+				for (String subscriptionName : subscriptionNames) {
+					if (!availableSubscriptions.contains(subscriptionName)) {
+						logger.warn("Subscription {} does not exists in source datastore {}", 
+								subscriptionName, sourceDatastore);
+						continue;
+					}
 					
-					if(status != Subscription.LIVE_STATUS_ACTIVE){
-						
-						logger.warn("Subscription {} found not running. It is in status {}", 
-								subscription,
-								statusDesc);							
-						logger.info("Starting subscription {}.", subscription);
-						subscription.startMirror(true);
-						subscription.refresh();
+					// a failing subscription must not prevent checking the rest of the datastore
+					try {
+						checked++;
+						if (checkSubscription(datastore, sourceDatastore, subscriptionName) == MirroringOutcome.STARTED) {
+							started++;
+						}
+					} catch (AccessServerTimeoutException e) {
+						if ((session != null && session.isQuarantined()) || watchdog.isJobExpired()) {
+							// the session was quarantined, so the rest of the datastore cannot be checked
+							throw e;
+						}
+						// a status read shared with another job missed its deadline, not this one
+						logger.error("Error checking subscription {} in datastore {}", 
+								subscriptionName, sourceDatastore, e);
+					} catch (ApiException e) {
+						logger.error("Error checking subscription {} in datastore {}", 
+								subscriptionName, sourceDatastore, e);
 					}
-				} else {
-					logger.warn("Subscription {} does not exists in source datastore {}", 
-							subscription, sourceDatastore);
 				}
+				logger.info("Datastore {} swept. {} subscriptions checked, {} started", 
+						sourceDatastore, checked, started);
 			} else {
 				logger.warn("Received Source Data Store is null or blank.  Cannot be started");
 			}
+			healthy = true;
+		} catch (CircuitOpenException e) {
+			// nothing was called, so the session is still healthy
+			logger.debug("Sweep of datastore {} skipped. {}", sourceDatastore, e.getMessage());
+			healthy = true;
+			for (String subscriptionName : subscriptionNames) {
+				recordCheck(sourceDatastore, subscriptionName, 
+						RestartJournal.UNKNOWN_STATUS, MirroringOutcome.FAILED, System.nanoTime() - start);
+			}
 		} catch (ApiException e) {
 			logger.error("Error suscripción", e);
+			if (!reached) {
+				// the datastore could not be reached, so none of its subscriptions was checked
+				for (String subscriptionName : subscriptionNames) {
+					recordCheck(sourceDatastore, subscriptionName, 
+							RestartJournal.UNKNOWN_STATUS, MirroringOutcome.FAILED, System.nanoTime() - start);
+				}
+			}
 		} finally {
-			disconnectAccessServer();
+			closeSession(healthy);
+		}
+		logger.traceExit();
+	}
+
+	/**
+	 * Reads the status of a subscription and starts it when it is not active.
+	 * @param datastore connected source datastore
+	 * @param sourceDatastore name of the source datastore
+	 * @param subscriptionName name for the subscription
+	 * @return outcome of the check
+	 * @throws ApiException
+	 */
+	private MirroringOutcome checkSubscription(Publisher datastore, String sourceDatastore, String subscriptionName) 
+			throws ApiException {
+		long start = System.nanoTime();
+		MirroringOutcome outcome = MirroringOutcome.FAILED;
+		observedStatus = RestartJournal.UNKNOWN_STATUS;
+		try {
+			outcome = checkAndStart(datastore, sourceDatastore, subscriptionName);
+			return outcome;
+		} finally {
+			recordCheck(sourceDatastore, subscriptionName, observedStatus, outcome, 
+					System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Does the work of {@link #checkSubscription}, leaving the status read in observedStatus
+	 */
+	private MirroringOutcome checkAndStart(Publisher datastore, String sourceDatastore, String subscriptionName) 
+			throws ApiException {
+		SubscriptionStatusCache statusCache = SubscriptionStatusCache.getInstance();
+		Byte cachedStatus = statusCache.getStatus(sourceDatastore, subscriptionName, 
+				() -> readLiveStatus(datastore, sourceDatastore, subscriptionName));
+
+		if (cachedStatus == null) {
+			logger.warn("Subscription {} does not exists in source datastore {}", 
+					subscriptionName, sourceDatastore);
+			return MirroringOutcome.NOT_FOUND;
+		}
+		
+		byte status = cachedStatus;
+		observedStatus = status;
+		String statusDesc = describeSubscriptionStatus(status);
+		
+		logger.info("Subscription status: {}", statusDesc);
+		
+		if (status == Subscription.LIVE_STATUS_ACTIVE) {
+			return MirroringOutcome.ACTIVE;
+		}
+
+		Subscription subscription = call(AccessServerWatchdog.Phase.STATUS, AccessServerMetrics.GET_SUBSCRIPTION, 
+				sourceDatastore, () -> datastore.getSubscription(subscriptionName));
+		if (subscription == null) {
+			statusCache.invalidate(sourceDatastore, subscriptionName);
+			return MirroringOutcome.NOT_FOUND;
+		}
+
+		logger.warn("Subscription {} found not running. It is in status {}", 
+				subscription,
+				statusDesc);							
+		SubscriptionDependencies dependencies = SubscriptionDependencies.getInstance();
+		SubscriptionDependencies.Dependency inactive = inactiveDependency(datastore, sourceDatastore, subscriptionName);
+		if (inactive != null) {
+			if (dependencies.defer(sourceDatastore, subscriptionName, inactive)) {
+				logger.warn("Subscription {} is not started, since subscription {} it depends on is not active. "
+						+ "It stays stopped until {} is active", subscription, inactive, inactive);
+			} else {
+				logger.debug("Subscription {} is still waiting for subscription {}", subscription, inactive);
+			}
+			return MirroringOutcome.DEFERRED;
+		}
+		dependencies.resolved(sourceDatastore, subscriptionName);
+		logger.info("Starting subscription {}.", subscription);
+		long startedAt = System.nanoTime();
+		try {
+			watchdog.run(AccessServerWatchdog.Phase.START, sourceDatastore, quarantine(), 
+					() -> metrics.run(AccessServerMetrics.START_MIRROR, sourceDatastore, () -> subscription.startMirror(true)));
+			watchdog.run(AccessServerWatchdog.Phase.START, sourceDatastore, quarantine(), subscription::refresh);
+		} finally {
+			statusCache.invalidate(sourceDatastore, subscriptionName);
+		}
+		RestartVerifier.getInstance().verify(this, sourceDatastore, subscriptionName, startedAt);
+		return MirroringOutcome.STARTED;
+	}
+
+	/**
+	 * Finds a subscription that a subscription depends on and that is not active, reading
+	 * their status through the status cache.
+	 * @param datastore publisher holding the subscription, reused for dependencies on it
+	 * @param sourceDatastore publisher or source datastore holding the subscription
+	 * @param subscriptionName name for the subscription
+	 * @return the first dependency not active or whose status could not be read, null if
+	 * all of them are active
+	 * @throws AccessServerTimeoutException if reading a dependency missed its deadline
+	 */
+	private SubscriptionDependencies.Dependency inactiveDependency(Publisher datastore, String sourceDatastore, 
+			String subscriptionName) throws AccessServerTimeoutException {
+		for (SubscriptionDependencies.Dependency dependency 
+				: SubscriptionDependencies.getInstance().get(sourceDatastore, subscriptionName)) {
+			String dataStore = dependency.getDataStore();
+			Byte status;
+			try {
+				Publisher publisher = dataStore.equals(sourceDatastore) ? datastore 
+						: (Publisher) connectDatastore(dataStore, true);
+				status = SubscriptionStatusCache.getInstance().getStatus(dataStore, dependency.getSubscription(), 
+						() -> readLiveStatus(publisher, dataStore, dependency.getSubscription()));
+			} catch (AccessServerTimeoutException e) {
+				throw e;
+			} catch (ApiException e) {
+				logger.warn("Status of subscription {} could not be read: {}", dependency, e.getMessage());
+				return dependency;
+			}
+			if (status == null || status != Subscription.LIVE_STATUS_ACTIVE) {
+				return dependency;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the live status of a subscription, through the status cache, without starting it.
+	 * @param sourceDatastore publisher or source datastore holding the subscription
+	 * @param subscriptionName name for the subscription
+	 * @return live status, null if the subscription does not exist
+	 * @throws ApiException
+	 */
+	public Byte readStatus(String sourceDatastore, String subscriptionName) throws ApiException {
+		logger.traceEntry("read status for datastore {}, subscription {}", sourceDatastore, subscriptionName);
+		boolean healthy = false;
+		try {
+			openSession();
+			Publisher datastore = (Publisher) connectDatastore(sourceDatastore, true);
+			Byte status = SubscriptionStatusCache.getInstance().getStatus(sourceDatastore, subscriptionName, 
+					() -> readLiveStatus(datastore, sourceDatastore, subscriptionName));
+			healthy = true;
+			return logger.traceExit(status);
+		} finally {
+			closeSession(healthy);
+		}
+	}
+
+	/**
+	 * Reads the live status of several subscriptions through a single connection to their
+	 * source datastore, without starting them.  Cached statuses are read again, and the
+	 * statuses read are left in the status cache for the jobs checking them next.
+	 * @param sourceDatastore publisher or source datastore holding the subscriptions
+	 * @param subscriptionNames names for the subscriptions
+	 * @return live status by subscription name, null for the subscriptions that do not
+	 * exist.  Subscriptions whose status could not be read are left out
+	 * @throws ApiException if the datastore cannot be reached
+	 */
+	public Map<String, Byte> readStatuses(String sourceDatastore, Collection<String> subscriptionNames) 
+			throws ApiException {
+		logger.traceEntry("read statuses for datastore {}, subscriptions {}", sourceDatastore, subscriptionNames);
+		SubscriptionStatusCache statusCache = SubscriptionStatusCache.getInstance();
+		Map<String, Byte> statuses = new LinkedHashMap<>();
+		boolean healthy = false;
+		try {
+			openSession();
+			Publisher datastore = (Publisher) connectDatastore(sourceDatastore, true);
+			Set<String> availableSubscriptions = new HashSet<>(Arrays.asList(watchdog.call(
+					AccessServerWatchdog.Phase.STATUS, sourceDatastore, quarantine(), datastore::getSubscriptionNames)));
+			for (String subscriptionName : subscriptionNames) {
+				if (!availableSubscriptions.contains(subscriptionName)) {
+					statuses.put(subscriptionName, null);
+					continue;
+				}
+				statusCache.invalidate(sourceDatastore, subscriptionName);
+				try {
+					statuses.put(subscriptionName, statusCache.getStatus(sourceDatastore, subscriptionName, 
+							() -> readLiveStatus(datastore, sourceDatastore, subscriptionName)));
+				} catch (AccessServerTimeoutException e) {
+					throw e;
+				} catch (ApiException e) {
+					logger.warn("Status of subscription {} in datastore {} could not be read: {}", 
+							subscriptionName, sourceDatastore, e.getMessage());
+				}
+			}
+			healthy = true;
+		} finally {
+			closeSession(healthy);
+		}
+		return logger.traceExit(statuses);
+	}
+
+	/**
+	 * Checks that a source datastore can be reached, listing its subscriptions through 
+	 * its circuit breaker even when the session already holds a connection to it.
+	 * @param sourceDatastore publisher or source datastore
+	 * @throws CircuitOpenException if the circuit breaker of the datastore is open
+	 * @throws ApiException if the datastore cannot be reached
+	 */
+	public void probeDatastore(String sourceDatastore) throws ApiException {
+		logger.traceEntry("probe datastore {}", sourceDatastore);
+		boolean healthy = false;
+		try {
+			openSession();
+			Publisher datastore = (Publisher) connectDatastore(sourceDatastore, true);
+			CircuitBreakers.getInstance().dataStore(sourceDatastore).call(() -> watchdog.call(
+					AccessServerWatchdog.Phase.STATUS, sourceDatastore, quarantine(), datastore::getSubscriptionNames));
+			healthy = true;
+		} catch (CircuitOpenException e) {
+			// nothing was called, so the session is still healthy
+			healthy = true;
+			throw e;
+		} finally {
+			closeSession(healthy);
 		}
 		logger.traceExit();
 	}
 
+	/**
+	 * Reads the live status of a subscription from the datastore.
+	 * @return live status, null if the subscription does not exist
+	 */
+	private Byte readLiveStatus(Publisher datastore, String sourceDatastore, String subscriptionName) 
+			throws ApiException {
+		Subscription current = call(AccessServerWatchdog.Phase.STATUS, AccessServerMetrics.GET_SUBSCRIPTION, 
+				sourceDatastore, () -> datastore.getSubscription(subscriptionName));
+		if (current == null) {
+			return null;
+		}
+		return call(AccessServerWatchdog.Phase.STATUS, AccessServerMetrics.GET_LIVE_ACTIVITY_STATUS, 
+				sourceDatastore, current::getLiveActivityStatus)[1];
+	}
+
+	/**
+	 * Journals the outcome of a check and counts it for outage detection.
+	 */
+	private static void recordCheck(String dataStore, String subscription, byte status, MirroringOutcome outcome, 
+			long nanos) {
+		RestartJournal.getInstance().record(dataStore, subscription, status, outcome, nanos);
+		OutageDetector.getInstance().record(outcome, dataStore);
+	}
+
+	/**
+	 * Runs an Access Server call within the deadline of its phase, recording its latency.
+	 */
+	private <T> T call(AccessServerWatchdog.Phase phase, String operation, String dataStore, 
+			AccessServerMetrics.ApiCall<T> call) throws ApiException {
+		return watchdog.call(phase, dataStore, quarantine(), () -> metrics.time(operation, dataStore, call));
+	}
+
+	/**
+	 * @return what the watchdog closes when a call misses its deadline: the pooled session,
+	 * or the dedicated connection of a monitor
+	 */
+	private Runnable quarantine() {
+		AccessServerSession current = session;
+		if (current != null) {
+			return current::quarantine;
+		}
+		DataSource dataSource = accessServer;
+		return dataSource != null ? dataSource::close : null;
+	}
+
 	/**
 	 * Disconnects from the datastore.
 	 * 
@@ -205,16 +616,21 @@ public class AccessServerUtil {
 		logger.traceEntry("connecting to Access Server...");
 		try {
 
-			accessServer = Toolkit.getDefaultToolkit().createDataSource();
+			DataSource dataSource = AccessServerSessionPool.getInstance().getDataSourceFactory().createDataSource();
+			accessServer = dataSource;
 
 			DefaultContext eaAccessContext = new DefaultContext();
 			eaAccessContext.setString(DataSource.User, user);
 			eaAccessContext.setString(DataSource.Password, password);
 			eaAccessContext.setString(DataSource.Hostname, server);
 			eaAccessContext.setInt(DataSource.Port, Integer.parseInt(port));
-			accessServer.connect(eaAccessContext);
+			watchdog.run(AccessServerWatchdog.Phase.CONNECT, AccessServerMetrics.NO_DATASTORE, dataSource::close, 
+					() -> metrics.run(AccessServerMetrics.CONNECT_ACCESS_SERVER, AccessServerMetrics.NO_DATASTORE, 
+							() -> dataSource.connect(eaAccessContext)));
 
 			logger.trace("Connected.");
+		} catch (AccessServerTimeoutException e) {
+			throw logger.throwing(e);
 		} catch (ApiException e) {
 			throw logger.throwing(new ApiException("Failed to connect to " + server + 
 					"@" + port + " as " + user));
@@ -236,7 +652,15 @@ public class AccessServerUtil {
 		if (accessServer != null && accessServer.isOpen()) {
 			logger.trace("Disconnecting from Access Server...");
 			disconnecting = true;
-			accessServer.close();
+			long start = System.nanoTime();
+			boolean error = true;
+			try {
+				accessServer.close();
+				error = false;
+			} finally {
+				metrics.record(AccessServerMetrics.DISCONNECT_ACCESS_SERVER, AccessServerMetrics.NO_DATASTORE, 
+						System.nanoTime() - start, error);
+			}
 		}
 
 		if (accessServer != null && accessServer.isOpen()) {
@@ -248,6 +672,55 @@ public class AccessServerUtil {
 		logger.traceExit();
 	}
 
+	/**
+	 * Opens a dedicated Access Server connection and registers a monitor listener for
+	 * a source datastore, so status changes are pushed to the handler.  The connection
+	 * is not taken from the session pool since it stays open until {@link #stopMonitor()}.
+	 *
+	 * @param datastoreName
+	 *            the name of the source datastore.
+	 * @param handler
+	 *            receives the monitor messages.
+	 * @throws ApiException
+	 *             if an error occurred.
+	 */
+	public void startMonitor(String datastoreName, MonitorAgentMessageHandler handler) throws ApiException {
+		logger.traceEntry(datastoreName);
+		connectAccessServer();
+		try {
+			accessServer.startMonitorListener(handler);
+			ReplicationRole datastore = connectDatastore(datastoreName, true);
+			datastore.initMonitorListener(accessServer);
+			logger.info("Monitor listener registered for datastore {}", datastoreName);
+		} catch (ApiException e) {
+			stopMonitor();
+			throw logger.throwing(e);
+		}
+		logger.traceExit();
+	}
+
+	/**
+	 * Stops the monitor listener and closes the connection opened by 
+	 * {@link #startMonitor(String, MonitorAgentMessageHandler)}.
+	 */
+	public void stopMonitor() {
+		logger.traceEntry();
+		try {
+			if (accessServer != null && accessServer.isOpen()) {
+				accessServer.stopMonitorListener();
+			}
+		} catch (ApiException e) {
+			logger.warn("Error stopping monitor listener: {}", e.getMessage());
+		}
+		try {
+			disconnectAccessServer();
+		} catch (ApiException e) {
+			logger.warn("Error closing monitor connection: {}", e.getMessage());
+		}
+		accessServer = null;
+		logger.traceExit();
+	}
+
 	/**
 	 * Returns an example of arguments for the class.
 	 * 
@@ -265,7 +738,7 @@ public class AccessServerUtil {
 	 * @return status description
 	 */
 	public String describeSubscriptionStatus(byte status) {
-		logger.traceEntry(Byte.toString(status));
+		logger.traceEntry("status {}", status);
 
 		String describedStatus = "";
 
@@ -0,0 +1,461 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.demo.management.idr.metrics.AccessServerMetrics;
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.model.Settings;
+
+/**
+ * Puts deadlines on Access Server calls and on whole jobs.  When a call misses its
+ * deadline, the worker running it is interrupted and its session is quarantined: the
+ * connection is closed from another thread, which makes the blocked call fail, and the
+ * session is never handed out again.  The call then ends with an
+ * {@link AccessServerTimeoutException} and the worker goes back to the scheduler.
+ *
+ * A job deadline shortens the deadline of every call the job makes, and interrupts the
+ * job if it expires while waiting for something else, such as a concurrency permit
+ * during mass recovery.
+ *
+ * A single daemon thread waits for the earliest deadline, so watching a call only costs
+ * an entry in a delay queue.  A watch that ends in time is only marked as ended, since
+ * removing it would scan the queue under its lock; the thread drops it when its deadline
+ * comes.  A call that ignores both the interrupt and the closed
+ * connection keeps its worker; it is counted as hung until it returns.
+ *
+ * @author dlema
+ */
+public class AccessServerWatchdog implements MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(AccessServerWatchdog.class.getName());
+
+	private static final String TIMEOUTS = "idr_access_server_timeouts_total";
+	private static final String HUNG = "idr_access_server_hung_calls";
+
+	private static final AccessServerWatchdog instance = new AccessServerWatchdog();
+
+	/**
+	 * Steps of a job, each with its own deadline
+	 */
+	public enum Phase {
+		/** connecting to the Access Server */
+		CONNECT("connect"),
+		/** locating a datastore and connecting to it */
+		DATASTORE("dataStore"),
+		/** reading subscriptions and their status */
+		STATUS("status"),
+		/** starting a subscription and refreshing it */
+		START("start"),
+		/** the whole job */
+		JOB("job");
+
+		private final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	private final DelayQueue<Watch> watches = new DelayQueue<>();
+
+	// job deadline of each worker thread, while it runs a job
+	private final ThreadLocal<Watch> jobs = new ThreadLocal<>();
+
+	// timeouts by datastore, one counter for each phase
+	private final Map<String, AtomicLongArray> timeouts = new ConcurrentHashMap<>();
+
+	// calls that missed their deadline and have not returned yet
+	private final AtomicInteger hung = new AtomicInteger();
+
+	// closes quarantined sessions, since closing a broken connection may block as well
+	private final ExecutorService quarantines = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "AccessServerWatchdog-quarantine");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile Settings settings = new Settings();
+	private Thread thread;
+
+	AccessServerWatchdog() {
+	}
+
+	/**
+	 * @return the watchdog shared by all jobs
+	 */
+	public static AccessServerWatchdog getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the deadlines of a new configuration.  Calls already running keep theirs.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public void configure(Settings settings) {
+		this.settings = settings;
+		log.info("Deadlines (ms, 0 for none): connect {}, datastore {}, status {}, start {}, job {}",
+				settings.getConnectTimeout(), settings.getDataStoreTimeout(), settings.getStatusTimeout(),
+				settings.getStartTimeout(), settings.getJobTimeout());
+	}
+
+	/**
+	 * Starts the deadline of a job run by the current thread.  Calls made by the thread
+	 * until the watch is closed end by that deadline at the latest.
+	 *
+	 * @param dataStore datastore the job works on
+	 * @return watch to be closed when the job ends, even if it failed
+	 */
+	public Watch watchJob(String dataStore) {
+		long timeout = settings.getJobTimeout();
+		if (timeout <= 0) {
+			return new Watch(Phase.JOB, dataStore, 0, 0, null, false);
+		}
+		Watch watch = new Watch(Phase.JOB, dataStore, timeout, 
+				System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout), null, true);
+		jobs.set(watch);
+		enqueue(watch);
+		return watch;
+	}
+
+	/**
+	 * @return true if the deadline of the job run by the current thread was missed
+	 */
+	public boolean isJobExpired() {
+		Watch job = jobs.get();
+		return job != null && job.isExpired();
+	}
+
+	/**
+	 * Runs an Access Server call within the deadline of its phase.
+	 *
+	 * @param phase phase of the call
+	 * @param dataStore datastore the call works on, {@link AccessServerMetrics#NO_DATASTORE} if none
+	 * @param quarantine closes the connection used by the call, null if there is nothing to close
+	 * @param call the call
+	 * @return result of the call
+	 * @throws AccessServerTimeoutException if the deadline was missed
+	 * @throws ApiException if the call fails
+	 */
+	public <T> T call(Phase phase, String dataStore, Runnable quarantine, AccessServerMetrics.ApiCall<T> call) 
+			throws ApiException {
+		Watch watch = start(phase, dataStore, quarantine);
+		if (watch == null) {
+			return call.call();
+		}
+		T result;
+		try {
+			result = call.call();
+		} catch (ApiException | RuntimeException e) {
+			if (watch.end()) {
+				throw watch.timeout();
+			}
+			throw e;
+		}
+		if (watch.end()) {
+			throw watch.timeout();
+		}
+		return result;
+	}
+
+	/**
+	 * Runs an Access Server call without result within the deadline of its phase.
+	 *
+	 * @see #call(Phase, String, Runnable, AccessServerMetrics.ApiCall)
+	 */
+	public void run(Phase phase, String dataStore, Runnable quarantine, AccessServerMetrics.VoidApiCall call) 
+			throws ApiException {
+		call(phase, dataStore, quarantine, () -> {
+			call.call();
+			return null;
+		});
+	}
+
+	/**
+	 * Starts watching a call, with the deadline of its phase shortened to the deadline
+	 * of the job running it.
+	 *
+	 * @return the watch, null if the call has no deadline
+	 */
+	private Watch start(Phase phase, String dataStore, Runnable quarantine) throws AccessServerTimeoutException {
+		long timeout = timeout(phase);
+		long now = System.nanoTime();
+		long deadline = now + TimeUnit.MILLISECONDS.toNanos(timeout);
+		boolean counted = true;
+
+		Watch job = jobs.get();
+		if (job != null && (timeout <= 0 || job.deadline - deadline < 0)) {
+			// the job watch counts the timeout when the job deadline is reached
+			deadline = job.deadline;
+			timeout = job.timeout;
+			phase = Phase.JOB;
+			counted = false;
+		} else if (timeout <= 0) {
+			return null;
+		}
+
+		Watch watch = new Watch(phase, dataStore, timeout, deadline, quarantine, counted);
+		if (deadline - now <= 0) {
+			throw watch.timeout();
+		}
+		enqueue(watch);
+		return watch;
+	}
+
+	private long timeout(Phase phase) {
+		Settings current = settings;
+		switch (phase) {
+		case CONNECT:
+			return current.getConnectTimeout();
+		case DATASTORE:
+			return current.getDataStoreTimeout();
+		case STATUS:
+			return current.getStatusTimeout();
+		case START:
+			return current.getStartTimeout();
+		default:
+			return current.getJobTimeout();
+		}
+	}
+
+	private void enqueue(Watch watch) {
+		synchronized (this) {
+			if (thread == null) {
+				thread = new Thread(this::expireOverdue, "AccessServerWatchdog");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		watches.add(watch);
+	}
+
+	/**
+	 * Watchdog thread: waits for the earliest deadline and expires its watch
+	 */
+	private void expireOverdue() {
+		while (true) {
+			try {
+				watches.take().expire();
+			} catch (InterruptedException e) {
+				log.warn("Access Server watchdog interrupted. Deadlines are no longer enforced");
+				return;
+			} catch (RuntimeException e) {
+				log.error("Unmanaged error in the Access Server watchdog", e);
+			}
+		}
+	}
+
+	private void count(Phase phase, String dataStore) {
+		String key = dataStore != null ? dataStore : AccessServerMetrics.NO_DATASTORE;
+		AtomicLongArray counts = timeouts.get(key);
+		if (counts == null) {
+			counts = timeouts.computeIfAbsent(key, k -> new AtomicLongArray(Phase.values().length));
+		}
+		counts.incrementAndGet(phase.ordinal());
+	}
+
+	/**
+	 * @param dataStore datastore name
+	 * @return number of calls and jobs on the datastore that missed their deadline
+	 */
+	public long getTimeouts(String dataStore) {
+		AtomicLongArray counts = timeouts.get(dataStore);
+		long total = 0;
+		if (counts != null) {
+			for (int i = 0; i < counts.length(); i++) {
+				total += counts.get(i);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return number of calls and jobs that missed their deadline, by datastore
+	 */
+	public Map<String, Long> getTimeoutCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		for (String dataStore : timeouts.keySet()) {
+			counts.put(dataStore, getTimeouts(dataStore));
+		}
+		return counts;
+	}
+
+	/**
+	 * @return number of calls still running after missing their deadline
+	 */
+	public int getHungCalls() {
+		return hung.get();
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		out.append("# HELP ").append(TIMEOUTS).append(" Access Server calls and jobs that missed their deadline\n");
+		out.append("# TYPE ").append(TIMEOUTS).append(" counter\n");
+		for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<>(timeouts).entrySet()) {
+			for (Phase phase : Phase.values()) {
+				long count = entry.getValue().get(phase.ordinal());
+				if (count > 0) {
+					out.append(TIMEOUTS).append("{phase=\"").append(phase).append("\",datastore=\"")
+							.append(MetricsSource.escape(entry.getKey())).append("\"} ").append(count).append('\n');
+				}
+			}
+		}
+		out.append("# HELP ").append(HUNG).append(" Access Server calls still running after missing their deadline\n");
+		out.append("# TYPE ").append(HUNG).append(" gauge\n");
+		out.append(HUNG).append(' ').append(getHungCalls()).append('\n');
+	}
+
+	/**
+	 * @return String representation of the timeouts
+	 */
+	@Override
+	public String toString() {
+		return "timeouts by datastore: " + getTimeoutCounts() + ", hung calls: " + getHungCalls();
+	}
+
+	/**
+	 * Deadline of a call or a job, for the thread that created it
+	 */
+	public final class Watch implements Delayed, AutoCloseable {
+
+		private final Phase phase;
+		private final String dataStore;
+		private final long timeout;
+		private final long deadline;
+		private final boolean counted;
+		private final Thread worker = Thread.currentThread();
+
+		// cleared when the watch ends
+		private Runnable quarantine;
+		private boolean ended = false;
+		private boolean expired = false;
+
+		Watch(Phase phase, String dataStore, long timeout, long deadline, Runnable quarantine, boolean counted) {
+			this.phase = phase;
+			this.dataStore = dataStore;
+			this.timeout = timeout;
+			this.deadline = deadline;
+			this.quarantine = quarantine;
+			this.counted = counted;
+		}
+
+		/**
+		 * Called by the watchdog thread once the deadline is reached.
+		 */
+		private synchronized void expire() {
+			if (ended) {
+				return;
+			}
+			expired = true;
+			hung.incrementAndGet();
+			if (counted) {
+				count(phase, dataStore);
+			}
+			log.warn("{} on datastore {} missed its {} ms deadline in thread {}. It is abandoned", 
+					phase, dataStore, timeout, worker.getName());
+			worker.interrupt();
+			if (quarantine != null) {
+				quarantines.execute(quarantine);
+			}
+		}
+
+		/**
+		 * Stops watching.  If the deadline was missed, the interrupt sent to the worker
+		 * is cleared, so it does not reach the next job run by the same thread.  The watch
+		 * is left in the queue and discarded by the watchdog thread at its deadline.
+		 *
+		 * @return true if the deadline was missed
+		 */
+		boolean end() {
+			boolean missed;
+			synchronized (this) {
+				ended = true;
+				// the watch stays queued until its deadline, without holding on to the session
+				quarantine = null;
+				missed = expired;
+				if (missed) {
+					Thread.interrupted();
+				}
+			}
+			if (missed) {
+				hung.decrementAndGet();
+			}
+			if (jobs.get() == this) {
+				jobs.remove();
+			}
+			return missed;
+		}
+
+		/**
+		 * @return true if the deadline was missed
+		 */
+		public synchronized boolean isExpired() {
+			return expired;
+		}
+
+		/**
+		 * Ends a job watch.
+		 */
+		@Override
+		public void close() {
+			end();
+		}
+
+		AccessServerTimeoutException timeout() {
+			return new AccessServerTimeoutException(phase, phase + " on datastore " + dataStore 
+					+ " missed its " + timeout + " ms deadline");
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (other instanceof Watch) {
+				return Long.compare(deadline - ((Watch) other).deadline, 0);
+			}
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
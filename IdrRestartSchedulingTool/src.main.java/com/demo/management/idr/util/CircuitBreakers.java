@@ -0,0 +1,307 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.demo.management.idr.metrics.AccessServerMetrics;
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.model.Settings;
+
+/**
+ * Circuit breakers for each Access Server and each datastore.  While an Access Server
+ * or a source agent is down, every job would connect to it, wait for the connection to
+ * fail and log the error.  After breakerThreshold consecutive connect failures the
+ * breaker opens and jobs fail at once with a {@link CircuitOpenException}, without
+ * calling anything.
+ *
+ * Once its backoff has passed, an open breaker lets a single call through as a probe.
+ * If the probe connects, the breaker closes; if it fails, the breaker opens again with
+ * twice the backoff, up to breakerMaxBackoff.
+ *
+ * @author dlema
+ */
+public class CircuitBreakers implements MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(CircuitBreakers.class.getName());
+
+	private static final String STATE = "idr_circuit_breaker_state";
+	private static final String OPENED = "idr_circuit_breaker_opened_total";
+	private static final String REJECTED = "idr_circuit_breaker_rejected_total";
+
+	private static final CircuitBreakers instance = new CircuitBreakers();
+
+	/**
+	 * State of a breaker, exported as its ordinal
+	 */
+	public enum State {
+		/** calls go through */
+		CLOSED,
+		/** calls are rejected until the backoff has passed */
+		OPEN,
+		/** a single probe is running */
+		HALF_OPEN
+	}
+
+	private final Map<String, Breaker> servers = new ConcurrentHashMap<>();
+	private final Map<String, Breaker> dataStores = new ConcurrentHashMap<>();
+
+	private volatile Settings settings = new Settings();
+
+	CircuitBreakers() {
+	}
+
+	/**
+	 * @return the breakers shared by all jobs
+	 */
+	public static CircuitBreakers getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the threshold and backoffs of a new configuration.  Open breakers keep
+	 * the backoff they are waiting for.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public void configure(Settings settings) {
+		this.settings = settings;
+		if (settings.getBreakerThreshold() <= 0) {
+			log.info("Circuit breakers disabled");
+		} else {
+			log.info("Circuit breakers open after {} connect failures, backoff {} to {} ms", 
+					settings.getBreakerThreshold(), settings.getBreakerBackoff(), settings.getBreakerMaxBackoff());
+		}
+	}
+
+	/**
+	 * @param server Access Server host name
+	 * @param port Access Server port
+	 * @return breaker for connecting to the Access Server
+	 */
+	public Breaker server(String server, String port) {
+		return servers.computeIfAbsent(server + ":" + port, name -> new Breaker("server", name));
+	}
+
+	/**
+	 * @param dataStore datastore name
+	 * @return breaker for locating and connecting to the datastore
+	 */
+	public Breaker dataStore(String dataStore) {
+		return dataStores.computeIfAbsent(dataStore, name -> new Breaker("datastore", name));
+	}
+
+	/**
+	 * @return number of breakers not closed
+	 */
+	public int getOpenCount() {
+		int open = 0;
+		for (Breaker breaker : servers.values()) {
+			open += breaker.getState() != State.CLOSED ? 1 : 0;
+		}
+		for (Breaker breaker : dataStores.values()) {
+			open += breaker.getState() != State.CLOSED ? 1 : 0;
+		}
+		return open;
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		Map<String, Breaker> servers = new TreeMap<>(this.servers);
+		Map<String, Breaker> dataStores = new TreeMap<>(this.dataStores);
+
+		out.append("# HELP ").append(STATE).append(" Circuit breaker state: 0 closed, 1 open, 2 half open\n");
+		out.append("# TYPE ").append(STATE).append(" gauge\n");
+		for (Breaker breaker : servers.values()) {
+			breaker.write(out, STATE, breaker.getState().ordinal());
+		}
+		for (Breaker breaker : dataStores.values()) {
+			breaker.write(out, STATE, breaker.getState().ordinal());
+		}
+		out.append("# HELP ").append(OPENED).append(" Times a circuit breaker opened\n");
+		out.append("# TYPE ").append(OPENED).append(" counter\n");
+		for (Breaker breaker : servers.values()) {
+			breaker.write(out, OPENED, breaker.opened.get());
+		}
+		for (Breaker breaker : dataStores.values()) {
+			breaker.write(out, OPENED, breaker.opened.get());
+		}
+		out.append("# HELP ").append(REJECTED).append(" Calls skipped by an open circuit breaker\n");
+		out.append("# TYPE ").append(REJECTED).append(" counter\n");
+		for (Breaker breaker : servers.values()) {
+			breaker.write(out, REJECTED, breaker.rejected.get());
+		}
+		for (Breaker breaker : dataStores.values()) {
+			breaker.write(out, REJECTED, breaker.rejected.get());
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Breaker breaker : servers.values()) {
+			if (breaker.getState() != State.CLOSED) {
+				sb.append(sb.length() > 0 ? ", " : "").append(breaker);
+			}
+		}
+		for (Breaker breaker : dataStores.values()) {
+			if (breaker.getState() != State.CLOSED) {
+				sb.append(sb.length() > 0 ? ", " : "").append(breaker);
+			}
+		}
+		return sb.length() > 0 ? "not closed: " + sb : "all closed";
+	}
+
+	/**
+	 * Circuit breaker of one Access Server or datastore
+	 */
+	public final class Breaker {
+
+		private final String type;
+		private final String name;
+
+		private final AtomicLong opened = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+
+		private volatile State state = State.CLOSED;
+		private int failures = 0;
+		private long backoff = 0;
+		// System.nanoTime() when an open breaker lets a probe through, or when a probe is given up
+		private long retryAt = 0;
+
+		Breaker(String type, String name) {
+			this.type = type;
+			this.name = name;
+		}
+
+		/**
+		 * Runs a connect call through the breaker.  Connect failures are counted; other
+		 * exceptions thrown by the call are counted too, since they mean it did not connect.
+		 *
+		 * @param call the connect call
+		 * @return result of the call
+		 * @throws CircuitOpenException if the breaker is open and the call was not made
+		 * @throws ApiException if the call fails
+		 */
+		public <T> T call(AccessServerMetrics.ApiCall<T> call) throws ApiException {
+			int threshold = settings.getBreakerThreshold();
+			if (threshold <= 0) {
+				return call.call();
+			}
+			if (!allow()) {
+				rejected.incrementAndGet();
+				throw new CircuitOpenException("Circuit breaker of " + type + " " + name + " is open");
+			}
+			boolean connected = false;
+			try {
+				T result = call.call();
+				connected = true;
+				return result;
+			} finally {
+				if (connected) {
+					succeeded();
+				} else {
+					failed(threshold);
+				}
+			}
+		}
+
+		private synchronized boolean allow() {
+			long now = System.nanoTime();
+			switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (now - retryAt < 0) {
+					return false;
+				}
+				transition(State.HALF_OPEN, "letting a probe through");
+				break;
+			default:
+				// another probe is running, unless it has not returned in a whole backoff
+				if (now - retryAt < 0) {
+					return false;
+				}
+				log.warn("Circuit breaker of {} {} gives up waiting for its probe", type, name);
+				break;
+			}
+			retryAt = now + TimeUnit.MILLISECONDS.toNanos(backoff);
+			return true;
+		}
+
+		private synchronized void succeeded() {
+			failures = 0;
+			backoff = 0;
+			if (state != State.CLOSED) {
+				transition(State.CLOSED, "connected again");
+			}
+		}
+
+		private synchronized void failed(int threshold) {
+			failures++;
+			if (state == State.HALF_OPEN) {
+				backoff = Math.min(backoff * 2, Math.max(settings.getBreakerMaxBackoff(), 0));
+			} else if (state == State.CLOSED && failures >= threshold) {
+				backoff = Math.max(Math.min(settings.getBreakerBackoff(), settings.getBreakerMaxBackoff()), 0);
+			} else {
+				return;
+			}
+			retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff);
+			opened.incrementAndGet();
+			transition(State.OPEN, failures + " consecutive connect failures, next probe in " + backoff + " ms");
+		}
+
+		private void transition(State next, String reason) {
+			if (next != State.OPEN) {
+				log.info("Circuit breaker of {} {} {} -> {}: {}", type, name, state, next, reason);
+			} else {
+				log.warn("Circuit breaker of {} {} {} -> {}: {}", type, name, state, next, reason);
+			}
+			state = next;
+		}
+
+		/**
+		 * @return current state
+		 */
+		public State getState() {
+			return state;
+		}
+
+		private void write(StringBuilder out, String metric, long value) {
+			out.append(metric).append("{type=\"").append(type).append("\",name=\"")
+					.append(MetricsSource.escape(name)).append("\"} ").append(value).append('\n');
+		}
+
+		@Override
+		public String toString() {
+			return type + " " + name + " " + state;
+		}
+	}
+}
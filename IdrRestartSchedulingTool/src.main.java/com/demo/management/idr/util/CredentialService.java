@@ -0,0 +1,112 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Decrypts the secrets found in the configuration file.  The key file is read only once
+ * per process, and each distinct secret is decrypted only once per configuration
+ * generation, no matter how many subscriptions use it.
+ *
+ * @author dlema
+ */
+public class CredentialService {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(CredentialService.class.getName());
+
+	private static final CredentialService instance = new CredentialService();
+
+	private volatile Encryptor encryptor;
+
+	// decrypted secrets of the current generation, by encrypted value
+	private final Map<String, String> secrets = new ConcurrentHashMap<>();
+	private final AtomicLong generation = new AtomicLong();
+
+	CredentialService() {
+	}
+
+	/**
+	 * @return the credential service shared by the whole process
+	 */
+	public static CredentialService getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the encryptor, loading the key file the first time
+	 * @throws IOException if the key file could not be read
+	 */
+	public Encryptor getEncryptor() throws IOException {
+		Encryptor current = encryptor;
+		if (current == null) {
+			synchronized (this) {
+				current = encryptor;
+				if (current == null) {
+					current = new Encryptor();
+					encryptor = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Starts a new configuration generation, forgetting the secrets decrypted so far.
+	 * Called every time the configuration is (re)loaded.
+	 *
+	 * @return number of the new generation
+	 */
+	public long newGeneration() {
+		secrets.clear();
+		long current = generation.incrementAndGet();
+		logger.debug("credential generation {} started", current);
+		return current;
+	}
+
+	/**
+	 * Decrypts a secret, reusing the result if it was already decrypted in this generation.
+	 *
+	 * @param encrypted encrypted value, as found in the configuration file
+	 * @return decrypted value, null if it could not be decrypted
+	 * @throws IOException if the key file could not be read
+	 */
+	public String decrypt(String encrypted) throws IOException {
+		if (encrypted == null) {
+			return null;
+		}
+		String decrypted = secrets.get(encrypted);
+		if (decrypted == null) {
+			decrypted = getEncryptor().decrypt(encrypted);
+			if (decrypted != null) {
+				secrets.put(encrypted, decrypted);
+			}
+		}
+		return decrypted;
+	}
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
 import java.util.prefs.Preferences;
 
 import javax.crypto.Cipher;
@@ -40,9 +41,19 @@ public class Encryptor {
 	// Definición de logger
 	private static final Logger logger = LogManager.getLogger(Encryptor.class.getName());
 	
+	private static final String TRANSFORMATION = "AES/CBC/PKCS5PADDING";
+	
 	private byte[] key;
 	private String initVector;
 	
+	// key and IV specs are immutable, so they are built once and shared by every cipher
+	private SecretKeySpec skeySpec;
+	private IvParameterSpec iv;
+	
+	// ciphers are not thread safe; each thread keeps its own, already initialized
+	private final ThreadLocal<Cipher> encryptCipher = new ThreadLocal<>();
+	private final ThreadLocal<Cipher> decryptCipher = new ThreadLocal<>();
+	
 	public Encryptor() throws IOException {
 		logger.traceEntry();
 		
@@ -56,18 +67,16 @@ public class Encryptor {
 		String keyString = new String(Files.readAllBytes(Paths.get(keyFile)), StandardCharsets.UTF_8);
 		key = DatatypeConverter.parseHexBinary(keyString);
         initVector = "RandomInitVector"; // 16 bytes IV
+        iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
+        skeySpec = new SecretKeySpec(key, "AES");
         logger.traceExit();
 	}
 	
     public String encrypt(String value) {
         try {
-            IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-            SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
-
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
-            cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
+            Cipher cipher = cipher(encryptCipher, Cipher.ENCRYPT_MODE);
 
-            byte[] encrypted = cipher.doFinal(value.getBytes());
+            byte[] encrypted = doFinal(encryptCipher, cipher, value.getBytes());
 
             return logger.traceExit(Base64.encodeBase64String(encrypted));
         } catch (Exception ex) {
@@ -79,13 +88,9 @@ public class Encryptor {
 
     public String decrypt(String encrypted) {
         try {
-            IvParameterSpec iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
-            SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
+            Cipher cipher = cipher(decryptCipher, Cipher.DECRYPT_MODE);
 
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
-            cipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
-
-            byte[] original = cipher.doFinal(Base64.decodeBase64(encrypted));
+            byte[] original = doFinal(decryptCipher, cipher, Base64.decodeBase64(encrypted));
 
             return new String(original);
         } catch (Exception ex) {
@@ -95,6 +100,32 @@ public class Encryptor {
         return null;
     }
 
+    /**
+     * Returns the cipher of the current thread for the given mode, creating it the first time.
+     * A cipher goes back to its initialized state after doFinal, so it can be reused as is.
+     */
+    private Cipher cipher(ThreadLocal<Cipher> ciphers, int mode) throws GeneralSecurityException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, skeySpec, iv);
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
+
+    /**
+     * Runs doFinal, discarding the thread cipher if it fails, since its state is undefined then.
+     */
+    private byte[] doFinal(ThreadLocal<Cipher> ciphers, Cipher cipher, byte[] input) throws GeneralSecurityException {
+        try {
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            ciphers.remove();
+            throw e;
+        }
+    }
+
     /**
      * Only for testing purposes.  Receives a value as first argument and returns its encrypted value
      * 
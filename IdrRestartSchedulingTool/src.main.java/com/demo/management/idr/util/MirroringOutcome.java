@@ -0,0 +1,48 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+/**
+ * Result of checking a subscription and, when needed, restarting it.  CONFIRMED, 
+ * STILL_STARTING and START_FAILED are the final outcome of verifying a restart, see 
+ * {@link RestartVerifier}.
+ * New values are added at the end, since the journal stores the ordinal.
+ *
+ * @author dlema
+ */
+public enum MirroringOutcome {
+	/** the subscription was already active */
+	ACTIVE,
+	/** the subscription was not active and has been started */
+	STARTED,
+	/** the subscription does not exist in the source datastore */
+	NOT_FOUND,
+	/** the status could not be read or the subscription could not be started */
+	FAILED,
+	/** a subscription started earlier was found active by a later probe */
+	CONFIRMED,
+	/** a subscription started earlier was still starting at the last probe */
+	STILL_STARTING,
+	/** a subscription started earlier stopped, disappeared or could not be read again */
+	START_FAILED,
+	/** the subscription was not active and was left stopped, since a subscription it depends on is not active */
+	DEFERRED
+}
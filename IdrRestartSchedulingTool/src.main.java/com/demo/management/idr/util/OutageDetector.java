@@ -0,0 +1,208 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.demo.management.idr.model.Settings;
+
+/**
+ * Tells an outage from the usual stopped subscription.  Every check reports its outcome;
+ * when recoveryThreshold checks fail or find their subscription stopped within the 
+ * recovery window, the service enters recovery mode until a recovery pass ends it.
+ *
+ * The datastores of those checks, and of the bad checks made during the outage, are the
+ * ones the outage affects.  Each of them is left once a recovery pass has covered it,
+ * and the outage ends with the last one, so a single datastore going down does not
+ * recover the whole fleet.
+ *
+ * Only the times and datastores of the last recoveryThreshold bad checks are kept, in a
+ * ring, so a check costs a comparison and two array writes.
+ *
+ * @author dlema
+ */
+public class OutageDetector {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(OutageDetector.class.getName());
+
+	private static final OutageDetector instance = new OutageDetector();
+
+	// times and datastores of the last bad checks, in milliseconds
+	private long[] times = new long[0];
+	private String[] dataStores = new String[0];
+	private int next = 0;
+	private long window = Settings.DEFAULT_RECOVERY_WINDOW;
+
+	// when the outage started, 0 if there is none
+	private long outageStart = 0;
+	
+	// datastores affected by the outage and not recovered yet
+	private final Set<String> outageDataStores = new LinkedHashSet<>();
+	
+	// datastores a recovery pass is working on
+	private final Set<String> recovering = new HashSet<>();
+
+	OutageDetector() {
+	}
+
+	/**
+	 * @return the detector shared by all jobs
+	 */
+	public static OutageDetector getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the threshold and window of a new configuration, forgetting the bad checks
+	 * counted so far.  A detected outage is kept.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public synchronized void configure(Settings settings) {
+		int threshold = Math.max(settings.getRecoveryThreshold(), 0);
+		if (threshold != times.length) {
+			times = new long[threshold];
+			dataStores = new String[threshold];
+			next = 0;
+		}
+		window = settings.getRecoveryWindow();
+	}
+
+	/**
+	 * Counts the outcome of a check.
+	 *
+	 * @param outcome outcome of the check
+	 * @param dataStore source datastore of the checked subscription
+	 */
+	public void record(MirroringOutcome outcome, String dataStore) {
+		if (outcome != MirroringOutcome.FAILED && outcome != MirroringOutcome.STARTED) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (times.length == 0 || recovering.contains(dataStore)) {
+				return;
+			}
+			if (outageStart != 0) {
+				// the outage may spread to other datastores
+				if (dataStore != null && outageDataStores.add(dataStore)) {
+					log.warn("Outage extended to datastore {}", dataStore);
+				}
+				return;
+			}
+			// the slot written now holds the oldest of the last threshold bad checks
+			long oldest = times[next];
+			times[next] = now;
+			dataStores[next] = dataStore;
+			next = (next + 1) % times.length;
+			if (oldest != 0 && now - oldest <= window) {
+				outageStart = oldest;
+				for (String affected : dataStores) {
+					if (affected != null) {
+						outageDataStores.add(affected);
+					}
+				}
+				log.warn("Outage detected: {} checks failed or found their subscription stopped in {} ms. "
+						+ "Subscriptions of datastores {} will be recovered together when they can be reached", 
+						times.length, now - oldest, outageDataStores);
+			}
+		}
+	}
+
+	/**
+	 * @return true from the detection of an outage until its recovery ends
+	 */
+	public synchronized boolean isOutage() {
+		return outageStart != 0;
+	}
+
+	/**
+	 * @return datastores affected by the current outage and not recovered yet
+	 */
+	public synchronized Set<String> getOutageDataStores() {
+		return new LinkedHashSet<>(outageDataStores);
+	}
+
+	/**
+	 * @return time of the first bad check of the current outage, in milliseconds since the epoch;
+	 * 0 if there is none
+	 */
+	public synchronized long getOutageStart() {
+		return outageStart;
+	}
+
+	/**
+	 * Stops counting the checks of some datastores while a recovery pass works on them,
+	 * since the pass itself starts many of their subscriptions.  Checks of other 
+	 * datastores are still counted.
+	 *
+	 * @param dataStores datastores whose subscriptions the pass checks
+	 */
+	public synchronized void beginRecovery(Collection<String> dataStores) {
+		recovering.addAll(dataStores);
+	}
+
+	/**
+	 * Leaves the datastores covered by a recovery pass.  Once none is left, ends the
+	 * outage and starts counting bad checks again from scratch.
+	 *
+	 * @param recovered datastores whose subscriptions the pass checked
+	 * @return true if the outage has ended
+	 */
+	public synchronized boolean endRecovery(Collection<String> recovered) {
+		recovering.removeAll(recovered);
+		outageDataStores.removeAll(recovered);
+		if (!outageDataStores.isEmpty()) {
+			return false;
+		}
+		outageStart = 0;
+		for (int i = 0; i < times.length; i++) {
+			times[i] = 0;
+			dataStores[i] = null;
+		}
+		next = 0;
+		return true;
+	}
+
+	/**
+	 * Counts the checks of the datastores of a recovery pass that did not complete again,
+	 * leaving them in the outage so a later pass recovers them.
+	 *
+	 * @param dataStores datastores the pass was working on
+	 */
+	public synchronized void abortRecovery(Collection<String> dataStores) {
+		recovering.removeAll(dataStores);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return outageStart != 0 ? "outage since " + new Date(outageStart) + " on datastores " + outageDataStores 
+				: "no outage";
+	}
+}
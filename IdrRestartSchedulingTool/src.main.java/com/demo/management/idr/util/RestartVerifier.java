@@ -0,0 +1,341 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+import com.datamirror.ea.api.publisher.Subscription;
+import com.demo.management.idr.journal.RestartJournal;
+import com.demo.management.idr.metrics.MetricsSource;
+import com.demo.management.idr.metrics.RollingPercentiles;
+import com.demo.management.idr.model.Settings;
+
+/**
+ * Confirms that restarted subscriptions become active.  A job that starts a subscription
+ * does not wait for it: the restart is handed to this verifier, which reads the status
+ * again at fixed times after the restart (5, 15 and 60 seconds by default) on a small 
+ * pool of timer threads.
+ *
+ * Every restart ends with one final outcome, recorded in the restart journal: 
+ * {@link MirroringOutcome#CONFIRMED} as soon as a probe finds the subscription active, 
+ * {@link MirroringOutcome#STILL_STARTING} if it is still starting at the last probe, and
+ * {@link MirroringOutcome#START_FAILED} if it stopped, disappeared or could not be read.
+ * The time from the restart to the first active probe is kept as time-to-active.
+ *
+ * @author dlema
+ */
+public class RestartVerifier implements MetricsSource {
+
+	// logger definition
+	private static final Logger log = LogManager.getLogger(RestartVerifier.class.getName());
+
+	private static final String OUTCOMES = "idr_restart_verifications_total";
+	private static final String PENDING = "idr_restart_verifications_pending";
+	private static final String TIME_TO_ACTIVE = "idr_restart_time_to_active_seconds";
+
+	// time-to-active samples kept for the percentiles
+	private static final int SAMPLES = 4096;
+	private static final long WINDOW = 60 * 60 * 1000;
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+	private static final MirroringOutcome[] FINAL_OUTCOMES = {
+			MirroringOutcome.CONFIRMED, MirroringOutcome.STILL_STARTING, MirroringOutcome.START_FAILED};
+
+	private static final RestartVerifier instance = new RestartVerifier();
+
+	// final outcomes, by ordinal
+	private final AtomicLongArray outcomes = new AtomicLongArray(MirroringOutcome.values().length);
+	private final AtomicInteger pending = new AtomicInteger();
+	private final RollingPercentiles timeToActive = new RollingPercentiles(SAMPLES, WINDOW);
+
+	private volatile long[] delays = parseDelays(Settings.DEFAULT_VERIFY_DELAYS);
+	private volatile int threads = Settings.DEFAULT_VERIFY_THREADS;
+	private ScheduledThreadPoolExecutor timer;
+
+	RestartVerifier() {
+	}
+
+	/**
+	 * @return the verifier shared by all jobs
+	 */
+	public static RestartVerifier getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Applies the probe times of a new configuration.  Restarts already being verified
+	 * keep theirs.
+	 *
+	 * @param settings settings from the configuration file
+	 */
+	public synchronized void configure(Settings settings) {
+		long[] configured;
+		try {
+			configured = parseDelays(settings.getVerifyDelays());
+		} catch (NumberFormatException e) {
+			log.warn("Invalid verifyDelays {}, using {}", settings.getVerifyDelays(), Settings.DEFAULT_VERIFY_DELAYS);
+			configured = parseDelays(Settings.DEFAULT_VERIFY_DELAYS);
+		}
+		delays = configured;
+		threads = Math.max(settings.getVerifyThreads(), 1);
+		if (timer != null) {
+			timer.setCorePoolSize(threads);
+		}
+		if (configured.length == 0) {
+			log.info("Restarts are not verified");
+		} else {
+			log.info("Restarts verified {} ms after the restart with {} threads", 
+					Arrays.toString(configured), threads);
+		}
+	}
+
+	/**
+	 * Parses a comma separated list of times, keeping them in increasing order.
+	 */
+	private static long[] parseDelays(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return new long[0];
+		}
+		String[] items = value.split(",");
+		long[] result = new long[items.length];
+		for (int i = 0; i < items.length; i++) {
+			result[i] = Long.parseLong(items[i].trim());
+			if (result[i] < 0) {
+				throw new NumberFormatException("Negative delay " + result[i]);
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Starts verifying a restart.  Returns at once; the probes run on the timer threads.
+	 *
+	 * @param connection Access Server connection data of the job that restarted the subscription
+	 * @param dataStore source datastore
+	 * @param subscription subscription name
+	 * @param startedAt {@link System#nanoTime()} when the restart was requested
+	 */
+	public void verify(AccessServerUtil connection, String dataStore, String subscription, long startedAt) {
+		long[] times = delays;
+		if (times.length == 0) {
+			return;
+		}
+		Verification verification = new Verification(connection, dataStore, subscription, startedAt, times);
+		pending.incrementAndGet();
+		verification.schedule();
+	}
+
+	private synchronized ScheduledThreadPoolExecutor timer() {
+		if (timer == null) {
+			timer = new ScheduledThreadPoolExecutor(threads, runnable -> {
+				Thread thread = new Thread(runnable, "RestartVerifier");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return timer;
+	}
+
+	/**
+	 * Stops the timer threads.  Restarts still being verified are left without final outcome.
+	 */
+	public synchronized void shutdown() {
+		if (timer != null) {
+			timer.shutdownNow();
+			timer = null;
+			if (pending.get() > 0) {
+				log.info("{} restart verifications dropped on shutdown", pending.get());
+			}
+		}
+	}
+
+	/**
+	 * @param outcome final outcome of a verification
+	 * @return number of restarts that ended with that outcome
+	 */
+	public long getCount(MirroringOutcome outcome) {
+		return outcomes.get(outcome.ordinal());
+	}
+
+	/**
+	 * @return number of restarts still being verified
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * @param quantile requested quantile, between 0 and 1
+	 * @return time-to-active of the confirmed restarts of the last hour, in milliseconds
+	 */
+	public long getTimeToActive(double quantile) {
+		return timeToActive.getPercentiles(quantile)[0];
+	}
+
+	@Override
+	public void writePrometheus(StringBuilder out) {
+		out.append("# HELP ").append(OUTCOMES).append(" Verified restarts by final outcome\n");
+		out.append("# TYPE ").append(OUTCOMES).append(" counter\n");
+		for (MirroringOutcome outcome : FINAL_OUTCOMES) {
+			out.append(OUTCOMES).append("{outcome=\"").append(outcome.name().toLowerCase()).append("\"} ")
+					.append(getCount(outcome)).append('\n');
+		}
+		out.append("# HELP ").append(PENDING).append(" Restarts still being verified\n");
+		out.append("# TYPE ").append(PENDING).append(" gauge\n");
+		out.append(PENDING).append(' ').append(getPending()).append('\n');
+
+		long[] values = timeToActive.getPercentiles(QUANTILES);
+		out.append("# HELP ").append(TIME_TO_ACTIVE).append(" Time from restart to active, last hour\n");
+		out.append("# TYPE ").append(TIME_TO_ACTIVE).append(" summary\n");
+		for (int i = 0; i < QUANTILES.length; i++) {
+			out.append(TIME_TO_ACTIVE).append("{quantile=\"").append(QUANTILES[i]).append("\"} ")
+					.append(values[i] / 1000.0).append('\n');
+		}
+		out.append(TIME_TO_ACTIVE).append("_count ").append(timeToActive.getCount()).append('\n');
+	}
+
+	@Override
+	public String toString() {
+		return "confirmed: " + getCount(MirroringOutcome.CONFIRMED) + ", still starting: " 
+				+ getCount(MirroringOutcome.STILL_STARTING) + ", failed: " + getCount(MirroringOutcome.START_FAILED)
+				+ ", pending: " + getPending() + ", time-to-active p50/p99: " + getTimeToActive(0.5) + "/" 
+				+ getTimeToActive(0.99) + " ms";
+	}
+
+	/**
+	 * @return true for the statuses a subscription goes through while it starts
+	 */
+	static boolean isStarting(byte status) {
+		switch (status) {
+		case Subscription.LIVE_STATUS_START:
+		case Subscription.LIVE_STATUS_WAIT:
+		case Subscription.LIVE_STATUS_RECOVERY:
+		case Subscription.LIVE_STATUS_DS_STARTING_JOB:
+		case Subscription.LIVE_STATUS_DS_WAITING_FOR_JOB_TO_START:
+		case Subscription.LIVE_STATUS_DS_CONNECTING_WITH_TARGET:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * The probes of one restart.  Each probe runs on a timer thread and schedules the 
+	 * next one, so no thread waits between probes.
+	 */
+	private final class Verification implements Runnable {
+
+		private final AccessServerUtil connection;
+		private final String dataStore;
+		private final String subscription;
+		private final long startedAt;
+		private final long[] times;
+		private int probe = 0;
+
+		Verification(AccessServerUtil connection, String dataStore, String subscription, long startedAt, 
+				long[] times) {
+			// probes run one after the other, so they can share a connection helper
+			this.connection = new AccessServerUtil(connection.getServer(), connection.getPort(), 
+					connection.getUser(), connection.getPassword());
+			this.dataStore = dataStore;
+			this.subscription = subscription;
+			this.startedAt = startedAt;
+			this.times = times;
+		}
+
+		/**
+		 * Schedules the next probe at its time after the restart.
+		 */
+		void schedule() {
+			long delay = startedAt + TimeUnit.MILLISECONDS.toNanos(times[probe]) - System.nanoTime();
+			try {
+				timer().schedule(this, Math.max(delay, 0), TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// shutting down, the verification is dropped
+				pending.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void run() {
+			boolean last = probe == times.length - 1;
+			Byte status;
+			try {
+				status = connection.readStatus(dataStore, subscription);
+			} catch (ApiException e) {
+				log.debug("Probe {} of restarted subscription {} in datastore {} failed", 
+						probe + 1, subscription, dataStore, e);
+				if (last) {
+					finish(MirroringOutcome.START_FAILED, RestartJournal.UNKNOWN_STATUS);
+				} else {
+					next();
+				}
+				return;
+			}
+
+			if (status == null) {
+				finish(MirroringOutcome.START_FAILED, RestartJournal.UNKNOWN_STATUS);
+			} else if (status == Subscription.LIVE_STATUS_ACTIVE) {
+				finish(MirroringOutcome.CONFIRMED, status);
+			} else if (!last && (probe == 0 || isStarting(status))) {
+				// the first probe may still see the status the subscription had before the start
+				next();
+			} else {
+				finish(isStarting(status) ? MirroringOutcome.STILL_STARTING : MirroringOutcome.START_FAILED, status);
+			}
+		}
+
+		private void next() {
+			probe++;
+			schedule();
+		}
+
+		private void finish(MirroringOutcome outcome, byte status) {
+			long nanos = System.nanoTime() - startedAt;
+			long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+			pending.decrementAndGet();
+			outcomes.incrementAndGet(outcome.ordinal());
+			RestartJournal.getInstance().record(dataStore, subscription, status, outcome, nanos);
+			if (outcome == MirroringOutcome.CONFIRMED) {
+				timeToActive.record(millis);
+				log.info("Restart of subscription {} in datastore {} confirmed, active after {} ms", 
+						subscription, dataStore, millis);
+			} else if (outcome == MirroringOutcome.STILL_STARTING) {
+				log.warn("Subscription {} in datastore {} still starting {} ms after its restart", 
+						subscription, dataStore, millis);
+			} else {
+				log.warn("Restart of subscription {} in datastore {} failed. {} ms after the restart its status is {}", 
+						subscription, dataStore, millis, status == RestartJournal.UNKNOWN_STATUS ? "unknown" 
+								: connection.describeSubscriptionStatus(status));
+			}
+		}
+	}
+}
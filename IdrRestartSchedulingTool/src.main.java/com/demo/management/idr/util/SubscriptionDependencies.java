@@ -0,0 +1,156 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The subscriptions each subscription depends on, resolved from the dependsOn
+ * declarations of the configuration.  Before starting a stopped subscription, a check
+ * makes sure every subscription it depends on is active, so a dependent is never 
+ * restarted before its parent.
+ *
+ * A dependent left stopped is reported once for each dependency holding it back, until
+ * its dependencies are active or the configuration is loaded again, so a dependency stopped on purpose
+ * does not flood the log.
+ *
+ * @author dlema
+ */
+public class SubscriptionDependencies {
+
+	private static final SubscriptionDependencies instance = new SubscriptionDependencies();
+
+	// dependencies by source datastore and subscription name
+	private volatile Map<String, Map<String, List<Dependency>>> dependencies = Collections.emptyMap();
+
+	// dependency last reported as holding back each deferred subscription, by datastore and name
+	private final Map<String, String> deferred = new ConcurrentHashMap<>();
+
+	SubscriptionDependencies() {
+	}
+
+	/**
+	 * @return the dependencies shared by all jobs
+	 */
+	public static SubscriptionDependencies getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Replaces the dependencies with the ones of a configuration just loaded.
+	 *
+	 * @param dependencies dependencies by source datastore and subscription name
+	 */
+	public void configure(Map<String, Map<String, List<Dependency>>> dependencies) {
+		Map<String, Map<String, List<Dependency>>> copy = new HashMap<>();
+		for (Map.Entry<String, Map<String, List<Dependency>>> dataStore : dependencies.entrySet()) {
+			Map<String, List<Dependency>> subscriptions = new HashMap<>();
+			for (Map.Entry<String, List<Dependency>> subscription : dataStore.getValue().entrySet()) {
+				subscriptions.put(subscription.getKey(), Collections.unmodifiableList(subscription.getValue()));
+			}
+			copy.put(dataStore.getKey(), subscriptions);
+		}
+		this.dependencies = copy;
+		deferred.clear();
+	}
+
+	/**
+	 * Records that a subscription was left stopped because of a dependency.
+	 *
+	 * @param dataStore source datastore of the subscription
+	 * @param subscription subscription name
+	 * @param dependency dependency that is not active
+	 * @return true if this dependency had not been reported for the subscription yet
+	 */
+	public boolean defer(String dataStore, String subscription, Dependency dependency) {
+		String previous = deferred.put(dataStore + "/" + subscription, dependency.getSubscriptionId());
+		return !dependency.getSubscriptionId().equals(previous);
+	}
+
+	/**
+	 * Forgets the dependency reported for a subscription, once all its dependencies are
+	 * active.
+	 *
+	 * @param dataStore source datastore of the subscription
+	 * @param subscription subscription name
+	 */
+	public void resolved(String dataStore, String subscription) {
+		if (!deferred.isEmpty()) {
+			deferred.remove(dataStore + "/" + subscription);
+		}
+	}
+
+	/**
+	 * @param dataStore source datastore of the subscription
+	 * @param subscription subscription name
+	 * @return the subscriptions it depends on, empty if none
+	 */
+	public List<Dependency> get(String dataStore, String subscription) {
+		Map<String, List<Dependency>> subscriptions = dependencies.get(dataStore);
+		if (subscriptions == null) {
+			return Collections.emptyList();
+		}
+		List<Dependency> found = subscriptions.get(subscription);
+		return found != null ? found : Collections.<Dependency>emptyList();
+	}
+
+	/**
+	 * A subscription another subscription depends on
+	 */
+	public static final class Dependency {
+
+		private final String subscriptionId;
+		private final String dataStore;
+		private final String subscription;
+
+		/**
+		 * @param subscriptionId subscription id in the configuration
+		 * @param dataStore source datastore
+		 * @param subscription subscription name
+		 */
+		public Dependency(String subscriptionId, String dataStore, String subscription) {
+			this.subscriptionId = subscriptionId;
+			this.dataStore = dataStore;
+			this.subscription = subscription;
+		}
+
+		public String getSubscriptionId() {
+			return subscriptionId;
+		}
+
+		public String getDataStore() {
+			return dataStore;
+		}
+
+		public String getSubscription() {
+			return subscription;
+		}
+
+		@Override
+		public String toString() {
+			return subscriptionId;
+		}
+	}
+}
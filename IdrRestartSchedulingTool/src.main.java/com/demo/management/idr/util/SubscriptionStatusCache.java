@@ -0,0 +1,252 @@
+/**
+ * Licensed Materials - Property of IBM 
+ * 
+ * (c) Copyright IBM Corp. 2019 All rights reserved.
+ * 
+ * The following sample of source code ("Sample") is owned by International 
+ * Business Machines Corporation or one of its subsidiaries ("IBM") and is 
+ * copyrighted and licensed, not sold. You may use, copy, modify, and 
+ * distribute the Sample in any form without payment to IBM.
+ * 
+ * The Sample code is provided to you on an "AS IS" basis, without warranty of 
+ * any kind. IBM HEREBY EXPRESSLY DISCLAIMS ALL WARRANTIES, EITHER EXPRESS OR 
+ * IMPLIED, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE. Some jurisdictions do 
+ * not allow for the exclusion or limitation of implied warranties, so the above 
+ * limitations or exclusions may not apply to you. IBM shall not be liable for 
+ * any damages you suffer as a result of using, copying, modifying or 
+ * distributing the Sample, even if IBM has been advised of the possibility of 
+ * such damages.
+ */
+package com.demo.management.idr.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.datamirror.ea.api.ApiException;
+
+/**
+ * Keeps the live status of subscriptions for a short time, so jobs, sweeps and event
+ * checks reading the same subscription within the TTL share a single Access Server call.
+ * Concurrent lookups of a key that is being read wait for that read instead of issuing
+ * their own.  Entries are keyed by source datastore and subscription name, and are
+ * invalidated whenever the subscription is restarted.
+ *
+ * @author dlema
+ */
+public class SubscriptionStatusCache {
+
+	// logger definition
+	private static final Logger logger = LogManager.getLogger(SubscriptionStatusCache.class.getName());
+
+	// Default time a status is reused (in milliseconds)
+	public static final long DEFAULT_TTL = 5000;
+
+	private static final SubscriptionStatusCache instance = new SubscriptionStatusCache();
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private volatile long ttl = DEFAULT_TTL;
+
+	// statistics
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Reads the status of a subscription from the Access Server
+	 */
+	@FunctionalInterface
+	public interface StatusLoader {
+		/**
+		 * @return live activity status, null if the subscription does not exist
+		 * @throws ApiException
+		 */
+		Byte load() throws ApiException;
+	}
+
+	SubscriptionStatusCache() {
+	}
+
+	/**
+	 * @return the cache shared by all jobs in this process
+	 */
+	public static SubscriptionStatusCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the cached status of a subscription, reading it with the loader if it is not
+	 * cached or has expired.  Missing subscriptions and failed reads are not cached.
+	 *
+	 * @param dataStore source datastore name
+	 * @param subscriptionName subscription name
+	 * @param loader reads the status from the Access Server
+	 * @return live activity status, null if the subscription does not exist
+	 * @throws ApiException if the loader failed, for this call or for the call it waited for
+	 */
+	public Byte getStatus(String dataStore, String subscriptionName, StatusLoader loader) throws ApiException {
+		if (ttl <= 0) {
+			misses.incrementAndGet();
+			return loader.load();
+		}
+
+		String key = keyOf(dataStore, subscriptionName);
+		long now = System.currentTimeMillis();
+		Entry created = new Entry();
+		Entry entry = entries.compute(key, (k, current) -> {
+			if (current == null) {
+				return created;
+			}
+			if (current.isExpired(now)) {
+				evictions.incrementAndGet();
+				return created;
+			}
+			return current;
+		});
+
+		if (entry != created) {
+			hits.incrementAndGet();
+			logger.trace("status of {} read from cache", key);
+			return entry.get();
+		}
+
+		misses.incrementAndGet();
+		try {
+			Byte status = loader.load();
+			// the TTL counts from the end of the read
+			entry.expiresAt = System.currentTimeMillis() + ttl;
+			entry.status.complete(status);
+			if (status == null) {
+				entries.remove(key, entry);
+			}
+			return status;
+		} catch (ApiException | RuntimeException e) {
+			entries.remove(key, entry);
+			entry.status.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Forgets the status of a subscription, so the next lookup reads it again.  Called
+	 * after the subscription is started.
+	 *
+	 * @param dataStore source datastore name
+	 * @param subscriptionName subscription name
+	 */
+	public void invalidate(String dataStore, String subscriptionName) {
+		if (entries.remove(keyOf(dataStore, subscriptionName)) != null) {
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Removes the expired entries.
+	 *
+	 * @return number of entries removed
+	 */
+	public int evictExpired() {
+		long now = System.currentTimeMillis();
+		int evicted = 0;
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isExpired(now)) {
+				iterator.remove();
+				evicted++;
+			}
+		}
+		evictions.addAndGet(evicted);
+		return evicted;
+	}
+
+	/**
+	 * @return number of lookups answered from the cache, including those that waited for a read
+	 * in progress
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return number of lookups that read the status from the Access Server
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return number of entries removed because they expired or were invalidated
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return number of cached entries
+	 */
+	public int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * @return String representation of the cache statistics
+	 */
+	@Override
+	public String toString() {
+		return "hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions()
+				+ ", entries: " + getSize();
+	}
+
+	public long getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * @param ttl time a status is reused, in milliseconds.  0 disables the cache
+	 */
+	public void setTtl(long ttl) {
+		this.ttl = ttl;
+		if (ttl <= 0) {
+			entries.clear();
+		}
+	}
+
+	private static String keyOf(String dataStore, String subscriptionName) {
+		return dataStore + "/" + subscriptionName;
+	}
+
+	/**
+	 * Status of a subscription, possibly still being read
+	 */
+	private static final class Entry {
+
+		private final CompletableFuture<Byte> status = new CompletableFuture<>();
+		private volatile long expiresAt = Long.MAX_VALUE;
+
+		boolean isExpired(long now) {
+			return status.isDone() && now > expiresAt;
+		}
+
+		Byte get() throws ApiException {
+			try {
+				return status.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ApiException("Interrupted while waiting for subscription status");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof ApiException) {
+					throw (ApiException) e.getCause();
+				}
+				throw new ApiException("Subscription status could not be read: " + e.getCause());
+			}
+		}
+	}
+}